@@ -0,0 +1,144 @@
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+// Checks and measures dirty-region rendering. Two panels run the same seeded game with the same
+// scripted swipes: one is repainted in full every frame, the other only inside the clip the
+// RepaintManager would use for its damage (the union of the damage rectangles) into an image that
+// keeps its old pixels. Outside that clip the two images must be identical, i.e. nothing stale is
+// left on screen (inside it both were just painted from the same state; only the trail's fade, which
+// follows the wall clock, may differ by a millisecond). The report compares paint time and the
+// fraction of the panel repainted. Exits with 1 on a mismatch.
+//
+// Usage: java DamageRenderingBenchmark [seed [width height]]
+// A panel size other than the world size checks the scaled back-buffer path (see Viewport).
+public class DamageRenderingBenchmark {
+    private static final int FRAMES = 20_000;
+    private static final int FRAMES_PER_TICK = 2;   // e.g. a 120 Hz display, so frames are interpolated
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 5;
+        int width = args.length > 2 ? Integer.parseInt(args[1]) : GamePanel.WIDTH;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : GamePanel.HEIGHT;
+        BufferedImage fullImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        BufferedImage damagedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D fullG = fullImage.createGraphics();
+        Graphics2D damagedG = damagedImage.createGraphics();
+        int[] fullPixels = new int[width * height];
+        int[] damagedPixels = new int[width * height];
+
+        Random rand = new Random(seed);
+        boolean swiping = false;
+        int mx = 0, my = 0;
+        long fullNanos = 0, damagedNanos = 0;
+        double repaintedFraction = 0;
+        int fullRepaints = 0, mismatchedFrames = 0;
+        int frames = 0;
+        GamePanel full = null, damaged = null;
+        for (int f = 0; f < FRAMES; f++) {
+            // A new game (next seed) whenever the previous one ends
+            if (damaged == null || damaged.getSimulation().isGameOver()) {
+                full = new GamePanel(seed, false);
+                damaged = new GamePanel(seed, false);
+                full.setSize(width, height);
+                damaged.setSize(width, height);
+                seed++;
+                swiping = false;
+            }
+            // Scripted swipes: press, a random walk of drags, release
+            if (!swiping && rand.nextInt(40) == 0) {
+                swiping = true;
+                mx = rand.nextInt(width);
+                my = rand.nextInt(height);
+                send(full, damaged, MouseEvent.MOUSE_PRESSED, mx, my);
+            } else if (swiping && rand.nextInt(30) == 0) {
+                swiping = false;
+                send(full, damaged, MouseEvent.MOUSE_RELEASED, mx, my);
+            } else if (swiping) {
+                mx = Math.floorMod(mx + rand.nextInt(41) - 20, width);
+                my = Math.floorMod(my + rand.nextInt(41) - 20, height);
+                send(full, damaged, MouseEvent.MOUSE_DRAGGED, mx, my);
+            }
+            if (f % FRAMES_PER_TICK == 0) {
+                full.tick();
+                damaged.tick();
+            }
+            double alpha = (f % FRAMES_PER_TICK) / (double) FRAMES_PER_TICK;
+            full.render(alpha);
+            damaged.render(alpha);
+
+            long t0 = System.nanoTime();
+            full.paintComponent(fullG);
+            long t1 = System.nanoTime();
+            DamageRegion damage = damaged.getScreenDamage();
+            int x0 = 0, y0 = 0, x1 = 0, y1 = 0; // clip of this frame
+            if (damage.isFull()) {
+                damagedG.setClip(null);
+                x1 = width;
+                y1 = height;
+                fullRepaints++;
+                repaintedFraction += 1;
+            } else if (damage.getCount() > 0) {
+                x0 = Integer.MAX_VALUE;
+                y0 = Integer.MAX_VALUE;
+                for (int k = 0; k < damage.getCount(); k++) {
+                    x0 = Math.min(x0, damage.getX(k));
+                    y0 = Math.min(y0, damage.getY(k));
+                    x1 = Math.max(x1, damage.getX(k) + damage.getWidth(k));
+                    y1 = Math.max(y1, damage.getY(k) + damage.getHeight(k));
+                }
+                damagedG.setClip(x0, y0, x1 - x0, y1 - y0);
+                repaintedFraction += (x1 - x0) * (double) (y1 - y0) / (width * height);
+            }
+            long t2 = System.nanoTime();
+            if (damage.isFull() || damage.getCount() > 0) {
+                damaged.paintComponent(damagedG);
+            }
+            long t3 = System.nanoTime();
+            frames++;
+            fullNanos += t1 - t0;
+            damagedNanos += t3 - t2;
+
+            fullImage.getRGB(0, 0, width, height, fullPixels, 0, width);
+            damagedImage.getRGB(0, 0, width, height, damagedPixels, 0, width);
+            int differing = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int p = y * width + x;
+                    boolean repainted = x >= x0 && x < x1 && y >= y0 && y < y1;
+                    if (!repainted && fullPixels[p] != damagedPixels[p]) {
+                        differing++;
+                    }
+                }
+            }
+            if (differing > 0) {
+                mismatchedFrames++;
+                if (mismatchedFrames <= 5) {
+                    System.out.printf("frame %d: %d stale pixels%n", f, differing);
+                }
+            }
+        }
+        System.out.printf("%d frames: full repaint %.1f us/frame, damage-only %.1f us/frame (%.2fx)%n",
+                frames, fullNanos / 1000.0 / frames, damagedNanos / 1000.0 / frames,
+                fullNanos / (double) damagedNanos);
+        System.out.printf("repainted %.1f%% of the panel on average, %d full repaints, %d mismatched frames%n",
+                100 * repaintedFraction / frames, fullRepaints, mismatchedFrames);
+        if (mismatchedFrames > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void send(GamePanel a, GamePanel b, int id, int x, int y) {
+        for (GamePanel panel : new GamePanel[] {a, b}) {
+            MouseEvent e = new MouseEvent(panel, id, 0, 0, x, y, 1, false);
+            if (id == MouseEvent.MOUSE_PRESSED) {
+                panel.mousePressed(e);
+            } else if (id == MouseEvent.MOUSE_RELEASED) {
+                panel.mouseReleased(e);
+            } else {
+                panel.mouseDragged(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+// Measures heap bytes allocated per steady-state GamePanel frame and fails (exit status 1) if it
+// is not zero. The panel runs without its game loop, score log or other services (as in
+// Startup.runOffscreen): this thread advances a seeded game one tick per frame, with an AutoSwiper
+// playing and a new game queued whenever one is lost, and paints every frame offscreen, so it
+// runs headless and measures the same frames every time. Only the paint calls are counted, and
+// only on frames whose HUD values (score, lives, combo message, game over) are unchanged: a change
+// legitimately re-renders the HUD image, and those frames are reported separately. A new path
+// through the paint code can deoptimize it for a few dozen frames until it is recompiled, so the
+// quietest of several measurement windows is the steady-state figure.
+public class PaintAllocationBenchmark {
+    private static final int WARMUP_FRAMES = 20_000;
+    private static final int FRAMES = 2_000;
+    private static final int WINDOWS = 5;
+
+    public static void main(String[] args) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        GamePanel panel = new GamePanel(1, false);
+        panel.setSize(GamePanel.WIDTH, GamePanel.HEIGHT);
+        AutoSwiper player = new AutoSwiper(1, 1.0);
+        BufferedImage frame = new BufferedImage(GamePanel.WIDTH, GamePanel.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+
+        // Let objects appear and the JIT settle (escape analysis removes most short-lived temporaries)
+        for (int f = 0; f < WARMUP_FRAMES; f++) {
+            tick(panel, player);
+            panel.paintComponent(g);
+        }
+        GameSimulation simulation = panel.getSimulation();
+        long allocated = Long.MAX_VALUE;
+        int steadyFrames = 0;
+        int hudFrames = 0;
+        for (int w = 0; w < WINDOWS; w++) {
+            long windowAllocated = 0;
+            int windowSteady = 0;
+            for (int f = 0; f < FRAMES; f++) {
+                int score = simulation.getScore();
+                int lives = simulation.getLives();
+                String combo = simulation.getComboMessage();
+                boolean over = simulation.isGameOver();
+                tick(panel, player);
+                long before = threads.getCurrentThreadAllocatedBytes();
+                panel.paintComponent(g);
+                long frameAllocated = threads.getCurrentThreadAllocatedBytes() - before;
+                if (score != simulation.getScore() || lives != simulation.getLives()
+                        || combo != simulation.getComboMessage() || over != simulation.isGameOver()) {
+                    hudFrames++;
+                } else {
+                    windowAllocated += frameAllocated;
+                    windowSteady++;
+                }
+            }
+            if (windowAllocated < allocated) {
+                allocated = windowAllocated;
+                steadyFrames = windowSteady;
+            }
+        }
+        g.dispose();
+        double perFrame = allocated / (double) steadyFrames;
+        System.out.printf("%d steady frames, %d bytes allocated, %.1f bytes/frame"
+                + " (quietest of %d windows; %d HUD frames not counted)%n",
+                steadyFrames, allocated, perFrame, WINDOWS, hudFrames);
+        if (allocated != 0) {
+            System.exit(1);
+        }
+    }
+
+    // One game tick with the player's swipes; a lost game starts over at the next tick
+    private static void tick(GamePanel panel, AutoSwiper player) {
+        GameSimulation simulation = panel.getSimulation();
+        player.beforeTick(simulation);
+        panel.tick();
+        if (simulation.isGameOver()) {
+            panel.queueRestart();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.Random;
+
+// Compares the serial and parallel EntityStore physics passes. For each entity count it runs both on
+// identical stores for a number of ticks (with random slicing and respawning in between) and checks
+// that slot order, every field and the missed-fruit counts are exactly equal, then times one tick of each.
+public class ParallelPhysicsBenchmark {
+    private static final int[] COUNTS = {1000, 4096, 8192, 20000, 100000};
+    private static final int CHECK_TICKS = 200;
+    private static final int TIMED_TICKS = 400;
+    // Time scales by kind: every third check tick slows bombs only, to cover per-category scales
+    private static final double[] NORMAL = { 1.0, 1.0, 1.0, 1.0 };
+    private static final double[] BOMBS_SLOWED = { 1.0, 0.35, 1.0, 1.0 };
+
+    public static void main(String[] args) {
+        System.out.printf("common pool parallelism %d%n", java.util.concurrent.ForkJoinPool.getCommonPoolParallelism());
+        System.out.printf("%8s %15s %15s %8s%n", "objects", "serial ns/tick", "parallel ns/tick", "speedup");
+        for (int n : COUNTS) {
+            verify(n);
+            double serial = time(n, false);
+            double parallel = time(n, true);
+            System.out.printf("%8d %15.0f %15.0f %7.2fx%n", n, serial, parallel, serial / parallel);
+        }
+    }
+
+    private static void verify(int n) {
+        EntityStore serial = new EntityStore();
+        EntityStore parallel = new EntityStore();
+        Random serialRand = new Random(n);
+        Random parallelRand = new Random(n);
+        for (int tick = 0; tick < CHECK_TICKS; tick++) {
+            refill(serial, serialRand, n);
+            refill(parallel, parallelRand, n);
+            double[] scales = tick % 3 == 0 ? BOMBS_SLOWED : NORMAL;
+            int missedSerial = serial.updateAndCullSerial(scales, GamePanel.WIDTH, GamePanel.HEIGHT);
+            int missedParallel = parallel.updateAndCullParallel(scales, GamePanel.WIDTH, GamePanel.HEIGHT);
+            if (missedSerial != missedParallel || serial.size() != parallel.size()) {
+                fail(n, tick, "missed " + missedSerial + "/" + missedParallel + ", size " + serial.size() + "/" + parallel.size());
+            }
+            for (int i = 0; i < serial.size(); i++) {
+                if (serial.getX(i) != parallel.getX(i) || serial.getY(i) != parallel.getY(i)
+                        || serial.getVx(i) != parallel.getVx(i) || serial.getVy(i) != parallel.getVy(i)
+                        || serial.getStep(i) != parallel.getStep(i) || serial.getKind(i) != parallel.getKind(i)
+                        || serial.isSliced(i) != parallel.isSliced(i)) {
+                    fail(n, tick, "slot " + i + " differs");
+                }
+            }
+        }
+    }
+
+    // Top the store up to n entities and slice a few, the way input does between ticks
+    private static void refill(EntityStore store, Random rand, int n) {
+        while (store.size() < n) {
+            store.spawn((byte) rand.nextInt(3), 0, rand.nextInt(GamePanel.WIDTH), GamePanel.HEIGHT + 10,
+                    rand.nextDouble() * 6 - 3, -(rand.nextDouble() * 5 + 15), 20);
+        }
+        for (int k = 0; k < n / 100; k++) {
+            store.setSliced(rand.nextInt(store.size()), true);
+        }
+    }
+
+    private static double time(int n, boolean parallel) {
+        EntityStore store = new EntityStore();
+        Random rand = new Random(n);
+        long sink = 0;
+        long elapsed = 0;
+        for (int round = 0; round < 3; round++) {
+            elapsed = 0;
+            for (int tick = 0; tick < TIMED_TICKS; tick++) {
+                refill(store, rand, n);
+                long start = System.nanoTime();
+                sink += parallel ? store.updateAndCullParallel(NORMAL, GamePanel.WIDTH, GamePanel.HEIGHT)
+                        : store.updateAndCullSerial(NORMAL, GamePanel.WIDTH, GamePanel.HEIGHT);
+                elapsed += System.nanoTime() - start;
+            }
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return elapsed / (double) TIMED_TICKS;
+    }
+
+    private static void fail(int n, int tick, String message) {
+        System.out.printf("MISMATCH with %d objects at tick %d: %s%n", n, tick, message);
+        System.exit(1);
+    }
+}
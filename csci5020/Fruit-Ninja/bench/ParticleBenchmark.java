@@ -0,0 +1,75 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+// Update and draw cost of ParticleSystem with tens of thousands of live particles, and heap bytes
+// allocated in steady state, which must be zero (exit status 1 otherwise). Slices are emitted
+// at random places every tick to keep the pool near the target count; runs headless. Java2D's
+// image blit only stops allocating once the JIT has compiled it, so the quietest of several
+// measurement windows is the steady-state figure.
+//
+// Usage: java ParticleBenchmark [live particles]
+public class ParticleBenchmark {
+    private static final int WARMUP_TICKS = 3_000;
+    private static final int TICKS = 1_000;
+    private static final int WINDOWS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int target = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        ParticleSystem particles = new ParticleSystem(ParticleSystem.DEFAULT_CAPACITY,
+                GameSimulation.WIDTH, GameSimulation.HEIGHT, 1);
+        BufferedImage frame = new BufferedImage(GameSimulation.WIDTH, GameSimulation.HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+        Random rand = new Random(1);
+
+        for (int t = 0; t < WARMUP_TICKS; t++) {
+            tick(particles, rand, target, g);
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocated = Long.MAX_VALUE;
+        long updateNanos = 0, drawNanos = 0, live = 0;
+        for (int w = 0; w < WINDOWS; w++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            updateNanos = drawNanos = live = 0;
+            for (int t = 0; t < TICKS; t++) {
+                emit(particles, rand, target);
+                long start = System.nanoTime();
+                particles.update(t % 10 < 3 ? 0.5 : 1.0); // some slow-motion ticks
+                long mid = System.nanoTime();
+                particles.draw(g, 0.5);
+                updateNanos += mid - start;
+                drawNanos += System.nanoTime() - mid;
+                live += particles.size();
+            }
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+        }
+
+        System.out.printf("%d live particles on average, %d dropped%n", live / TICKS, particles.getDropped());
+        System.out.printf("update %.1f us/tick (%.1f ns/particle), draw %.2f ms/frame%n",
+                updateNanos / 1e3 / TICKS, (double) updateNanos / live, drawNanos / 1e6 / TICKS);
+        System.out.printf("%d ticks, %d bytes allocated%n", TICKS, allocated);
+        if (allocated != 0) {
+            System.out.println("FAILED: steady state allocates");
+            System.exit(1);
+        }
+    }
+
+    private static void tick(ParticleSystem particles, Random rand, int target, Graphics2D g) {
+        emit(particles, rand, target);
+        particles.update(1.0);
+        particles.draw(g, 0.5);
+    }
+
+    // Slice random objects until the pool is back near the target
+    private static void emit(ParticleSystem particles, Random rand, int target) {
+        while (particles.size() < target) {
+            byte kind = (byte) rand.nextInt(3);
+            particles.emitSlice(kind, rand.nextInt(2), 50 + rand.nextInt(700), 100 + rand.nextInt(400),
+                    rand.nextDouble() * 6 - 3, -rand.nextDouble() * 15, rand.nextInt(41) - 20, rand.nextInt(41) - 20);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+// Feeds QualityGovernor synthetic frame times and checks its decisions: a sustained overload steps
+// the quality down one level at a time to the lowest, load hovering between the thresholds
+// changes nothing, short spikes do not downgrade and short lulls do not upgrade, and sustained
+// headroom restores full quality. Exits with status 1 on any wrong decision.
+public class QualityGovernorBenchmark {
+    private static final int FPS = 60;
+    private static final long BUDGET = 1_000_000_000L / FPS;
+
+    private static int failures;
+
+    public static void main(String[] args) {
+        QualityGovernor governor = new QualityGovernor(FPS);
+
+        // Spikes of a single window above budget among normal frames
+        for (int k = 0; k < 20; k++) {
+            feed(governor, 30, BUDGET * 2);
+            feed(governor, 30, BUDGET * 7 / 10);
+        }
+        check("isolated spikes", governor, QualityGovernor.FULL);
+
+        // Overload: one level per two windows down to the lowest, then it stays there
+        int frames = 0;
+        while (governor.getLevel() < QualityGovernor.LEVELS - 1 && frames < 10_000) {
+            feed(governor, 1, BUDGET * 3 / 2);
+            frames++;
+        }
+        System.out.printf("lowest level after %d overloaded frames%n", frames);
+        check("overload", governor, QualityGovernor.LEVELS - 1);
+        feed(governor, 600, BUDGET * 3 / 2);
+        check("continued overload", governor, QualityGovernor.LEVELS - 1);
+
+        // Between the thresholds: hold the level
+        feed(governor, 3_000, BUDGET * 7 / 10);
+        check("inside the band", governor, QualityGovernor.LEVELS - 1);
+
+        // Short lulls interrupted by band-level windows do not upgrade
+        for (int k = 0; k < 20; k++) {
+            feed(governor, 30 * 5, BUDGET / 4);
+            feed(governor, 30, BUDGET * 7 / 10);
+        }
+        check("short lulls", governor, QualityGovernor.LEVELS - 1);
+
+        // Sustained headroom: back to full quality
+        feed(governor, 30 * 8 * QualityGovernor.LEVELS, BUDGET / 4);
+        check("headroom", governor, QualityGovernor.FULL);
+
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " wrong decisions");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static void feed(QualityGovernor governor, int frames, long workNanos) {
+        for (int f = 0; f < frames; f++) {
+            governor.recordFrame(workNanos);
+        }
+    }
+
+    private static void check(String what, QualityGovernor governor, int expected) {
+        int level = governor.getLevel();
+        System.out.printf("%s: level %d (%s)%s%n", what, level, QualityGovernor.getLevelName(level),
+                level == expected ? "" : ", expected " + expected);
+        if (level != expected) {
+            failures++;
+        }
+    }
+}
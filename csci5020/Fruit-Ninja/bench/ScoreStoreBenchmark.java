@@ -0,0 +1,125 @@
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+// Checks and times ScoreStore in a temporary directory: how long submit() holds up the caller,
+// that a long history is compacted and reloads with the same leaderboard and totals, how long
+// startup takes, and that a log cut off in the middle of a record (crash) or with a corrupted
+// last record loads every earlier game, and that one cut off inside its header starts a new log
+// that keeps the next games. Exits with status 1 on any mismatch.
+//
+// Usage: java ScoreStoreBenchmark [games]
+public class ScoreStoreBenchmark {
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path dir = Files.createTempDirectory("scores");
+        Path log = dir.resolve("scores.log");
+        int failures = 0;
+
+        // Write a long history; submit only updates the index and queues the game
+        Random rand = new Random(1);
+        ScoreStore store = new ScoreStore(log);
+        long start = System.nanoTime();
+        long slowest = 0;
+        for (int i = 0; i < games; i++) {
+            long t = System.nanoTime();
+            store.submit(rand.nextInt(1000), 30_000 + rand.nextInt(300_000), rand.nextInt(200), rand.nextInt(10));
+            slowest = Math.max(slowest, System.nanoTime() - t);
+        }
+        long submitNanos = System.nanoTime() - start;
+        store.close(60_000);
+        System.out.printf("submit: %d games, %.0f ns average, %d us slowest%n",
+                games, (double) submitNanos / games, slowest / 1000);
+        System.out.printf("log after compaction: %d KB%n", Files.size(log) / 1024);
+
+        // Reload: same leaderboard and totals, in a few milliseconds
+        long loadNanos = Long.MAX_VALUE;
+        ScoreStore reloaded = null;
+        for (int round = 0; round < 20; round++) {
+            long t = System.nanoTime();
+            reloaded = new ScoreStore(log);
+            loadNanos = Math.min(loadNanos, System.nanoTime() - t);
+            reloaded.close(1000);
+        }
+        System.out.printf("startup: %.2f ms%n", loadNanos / 1e6);
+        failures += compare("reload", store, reloaded);
+
+        // Crash in the middle of an append: the torn record is dropped, earlier games are kept
+        ScoreStore appended = new ScoreStore(log);
+        appended.submit(5000, 60_000, 50, 3);
+        appended.close(1000);
+        long end = lastRecordEnd(log);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(end - ScoreStore.RECORD_SIZE / 2);
+        }
+        failures += compare("torn append", reloaded, new ScoreStore(log));
+
+        // A flipped byte in the last record: same result
+        ScoreStore rewritten = new ScoreStore(log);
+        rewritten.submit(5000, 60_000, 50, 3);
+        rewritten.close(1000);
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[(int) lastRecordEnd(log) - 3] ^= 0x40;
+        Files.write(log, bytes);
+        failures += compare("corrupt record", reloaded, new ScoreStore(log));
+
+        // Crash while a new log's header was written: the log starts over and records again
+        Files.write(log, new byte[ScoreStore.HEADER_SIZE / 2]);
+        ScoreStore restarted = new ScoreStore(log);
+        restarted.submit(5000, 60_000, 50, 3);
+        restarted.close(1000);
+        failures += compare("torn header", restarted, new ScoreStore(log));
+
+        for (Path p : new Path[] { log, dir.resolve("scores.log.tmp") }) {
+            Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(dir);
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " mismatches");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    // End of the last written record (records are fixed-size; unused space is zero)
+    private static long lastRecordEnd(Path log) throws Exception {
+        byte[] bytes = Files.readAllBytes(log);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long end = ScoreStore.HEADER_SIZE;
+        for (int at = ScoreStore.HEADER_SIZE; at + ScoreStore.RECORD_SIZE <= bytes.length; at += ScoreStore.RECORD_SIZE) {
+            if (buffer.getInt(at + 4) == 0) {
+                break;
+            }
+            end = at + ScoreStore.RECORD_SIZE;
+        }
+        return end;
+    }
+
+    private static int compare(String what, ScoreStore expected, ScoreStore actual) {
+        int mismatches = 0;
+        ScoreStore.Session[] a = expected.getTopScores();
+        ScoreStore.Session[] b = actual.getTopScores();
+        if (a.length != b.length) {
+            mismatches++;
+        } else {
+            for (int i = 0; i < a.length; i++) {
+                if (a[i].getScore() != b[i].getScore() || a[i].getEndMillis() != b[i].getEndMillis()) {
+                    mismatches++;
+                }
+            }
+        }
+        if (expected.getGamesPlayed() != actual.getGamesPlayed() || expected.getTotalScore() != actual.getTotalScore()
+                || expected.getTotalSlices() != actual.getTotalSlices()
+                || expected.getTotalCombos() != actual.getTotalCombos()
+                || expected.getTotalMillis() != actual.getTotalMillis()) {
+            mismatches++;
+        }
+        actual.close(1000);
+        System.out.printf("%s: %d games, high score %d, %s%n", what, actual.getGamesPlayed(), actual.getHighScore(),
+                mismatches == 0 ? "matches" : mismatches + " MISMATCHES");
+        return mismatches;
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+// Cost of streaming a busy game to spectators: a simulation kept at a few hundred objects is
+// published by SnapshotServer at 60 ticks/s to several SpectatorClients over loopback. Reports the
+// publish time per tick, the bytes each client receives per tick next to the size of a full
+// snapshot, and checks that (exit status 1 otherwise)
+//   - publish() allocates nothing in steady state (quietest of several windows, as in ParticleBenchmark)
+//   - every client's newest snapshot is identical to the server's snapshot of that tick
+//   - a peer sending malformed frames (an ACK cut short, a bad length) is disconnected while the
+//     spectators keep receiving
+//
+// Usage: java SnapshotBenchmark [objects [clients]]
+public class SnapshotBenchmark {
+    private static final int WARMUP_TICKS = 1_200;
+    private static final int TICKS = 300;
+    private static final int WINDOWS = 4;
+
+    public static void main(String[] args) throws Exception {
+        int target = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int clientCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        GameSimulation simulation = new GameSimulation(1);
+        SnapshotServer server = new SnapshotServer(0);
+        SpectatorClient[] clients = new SpectatorClient[clientCount];
+        for (int c = 0; c < clientCount; c++) {
+            clients[c] = SpectatorClient.connect("127.0.0.1", server.getPort());
+        }
+
+        long next = System.nanoTime();
+        for (int t = 0; t < WARMUP_TICKS; t++) {
+            step(simulation, target);
+            server.publish(simulation);
+            next = pace(next);
+        }
+        if (server.getClientCount() != clientCount) {
+            System.out.println("FAILED: " + server.getClientCount() + " of " + clientCount + " clients connected");
+            System.exit(1);
+        }
+
+        Snapshot received = new Snapshot();
+        ByteBuffer full = ByteBuffer.allocate(SnapshotCodec.maxSnapshotBytes(4 * target));
+        long allocated = Long.MAX_VALUE;
+        long publishNanos = 0, bytes = 0, fullBytes = 0, objects = 0;
+        long fullSnapshots = server.getFullSnapshots();
+        int mismatches = 0;
+        for (int w = 0; w < WINDOWS; w++) {
+            long windowAllocated = 0;
+            long bytesBefore = server.getBytesSent();
+            publishNanos = fullBytes = objects = 0;
+            for (int t = 0; t < TICKS; t++) {
+                step(simulation, target);
+                long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                server.publish(simulation);
+                publishNanos += System.nanoTime() - start;
+                windowAllocated += threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+                next = pace(next);
+            }
+            allocated = Math.min(allocated, windowAllocated);
+            bytes = server.getBytesSent() - bytesBefore;
+            // What the same snapshot would cost without a baseline
+            Snapshot current = server.getSnapshot(latestTick(clients));
+            if (current != null) {
+                full.clear();
+                SnapshotCodec.writeSnapshot(current, null, full);
+                fullBytes = full.position();
+                objects = current.getCount();
+            }
+            mismatches += check(server, clients, received);
+        }
+        fullSnapshots = server.getFullSnapshots() - fullSnapshots;
+        boolean malformedDropped = sendMalformed(simulation, target, server, clientCount, next,
+                new byte[] { 0, 0, 0, 1, SnapshotCodec.ACK })
+                && sendMalformed(simulation, target, server, clientCount, next, new byte[] { 0x7f, 0, 0, 0, 0 });
+        mismatches += check(server, clients, received);
+
+        System.out.printf("%d clients, %d objects on screen, %d bytes per full snapshot%n",
+                clientCount, objects, fullBytes);
+        System.out.printf("publish %.1f us/tick, %.1f bytes/tick per client (%.1f%% of full), %d full snapshots after warm-up%n",
+                publishNanos / 1e3 / TICKS, (double) bytes / TICKS / clientCount,
+                fullBytes == 0 ? 0.0 : 100.0 * bytes / TICKS / clientCount / fullBytes, fullSnapshots);
+        System.out.printf("%d ticks, %d bytes allocated, %d mismatched snapshots%n", TICKS, allocated, mismatches);
+        for (SpectatorClient client : clients) {
+            client.close();
+        }
+        server.close();
+        if (allocated != 0) {
+            System.out.println("FAILED: publishing allocates");
+            System.exit(1);
+        }
+        if (!malformedDropped) {
+            System.out.println("FAILED: a peer sending malformed frames stayed connected");
+            System.exit(1);
+        }
+        if (mismatches != 0) {
+            System.out.println("FAILED: clients rebuilt different snapshots");
+            System.exit(1);
+        }
+    }
+
+    // Top the game up to the target object count and advance it; a lost game starts over
+    private static void step(GameSimulation simulation, int target) {
+        while (simulation.getObjects().size() < target) {
+            simulation.spawnObject();
+        }
+        simulation.step();
+        if (simulation.isGameOver()) {
+            simulation.reset();
+        }
+    }
+
+    // Connect a peer that sends one malformed frame and keep publishing; true once the server has
+    // dropped it (publish() must not throw)
+    private static boolean sendMalformed(GameSimulation simulation, int target, SnapshotServer server,
+                                         int clientCount, long next, byte[] frame) throws IOException {
+        SocketChannel peer = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getPort()));
+        boolean connected = false, dropped = false;
+        for (int t = 0; t < 120 && !dropped; t++) {
+            step(simulation, target);
+            server.publish(simulation);
+            next = pace(next);
+            if (!connected && server.getClientCount() > clientCount) {
+                connected = true;
+                peer.write(ByteBuffer.wrap(frame));
+            }
+            dropped = connected && server.getClientCount() == clientCount;
+        }
+        peer.close();
+        System.out.printf("malformed frame %s: %s%n", Arrays.toString(frame),
+                dropped ? "peer dropped" : "PEER STILL CONNECTED");
+        return dropped;
+    }
+
+    // Wait for the next 60 Hz tick, like the game loop
+    private static long pace(long next) {
+        next += GameLoop.TICK_NANOS;
+        long sleep = next - System.nanoTime();
+        if (sleep > 0) {
+            LockSupport.parkNanos(sleep);
+        }
+        return Math.max(next, System.nanoTime() - GameLoop.TICK_NANOS);
+    }
+
+    // Newest tick any client has received
+    private static int latestTick(SpectatorClient[] clients) {
+        int tick = -1;
+        for (SpectatorClient client : clients) {
+            tick = Math.max(tick, client.getNewestTick());
+        }
+        return tick;
+    }
+
+    // Number of clients whose newest snapshot differs from the server's (or is too old to compare)
+    private static int check(SnapshotServer server, SpectatorClient[] clients, Snapshot received) {
+        int mismatches = 0;
+        for (SpectatorClient client : clients) {
+            client.copyNewest(received);
+            Snapshot sent = server.getSnapshot(received.getTick());
+            if (client.isClosed() || sent == null || !sent.sameAs(received)) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+}
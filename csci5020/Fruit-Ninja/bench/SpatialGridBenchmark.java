@@ -0,0 +1,119 @@
+import java.util.Random;
+
+// Compares brute-force swipe collision against the SpatialGrid broad phase.
+// For each entity count it checks that both paths report identical hits (point and swept tests),
+// then times SEGMENTS swept drag segments per "frame" (grid cost includes one rebuild per frame).
+public class SpatialGridBenchmark {
+    private static final int[] COUNTS = {4, 8, 16, 32, 64, 128, 256, 1024, 4096, 10000};
+    private static final int SEGMENTS = 200;   // drag events per frame for a fast mouse
+    private static final int FRAMES = 200;
+
+    public static void main(String[] args) {
+        System.out.printf("%8s %14s %14s %8s %10s%n", "objects", "brute ns/frame", "grid ns/frame", "speedup", "hits");
+        for (int n : COUNTS) {
+            Random rand = new Random(42);
+            EntityStore store = populate(rand, n);
+            int[] segments = swipe(rand);
+            SpatialGrid grid = new SpatialGrid(GamePanel.WIDTH, GamePanel.HEIGHT, 40);
+            grid.rebuild(store);
+            verify(store, grid, segments);
+            // Warm up both paths, then measure
+            long sink = 0;
+            for (int w = 0; w < 3; w++) {
+                sink += runBrute(store, segments, FRAMES / 4) + runGrid(store, grid, segments, FRAMES / 4);
+            }
+            long t0 = System.nanoTime();
+            sink += runBrute(store, segments, FRAMES);
+            long t1 = System.nanoTime();
+            sink += runGrid(store, grid, segments, FRAMES);
+            long t2 = System.nanoTime();
+            double brute = (t1 - t0) / (double) FRAMES;
+            double gridNs = (t2 - t1) / (double) FRAMES;
+            System.out.printf("%8d %14.0f %14.0f %7.2fx %10d%n", n, brute, gridNs, brute / gridNs, sink);
+        }
+    }
+
+    private static EntityStore populate(Random rand, int n) {
+        EntityStore store = new EntityStore();
+        for (int i = 0; i < n; i++) {
+            store.spawn((byte) rand.nextInt(3), 0, rand.nextInt(GamePanel.WIDTH), rand.nextInt(GamePanel.HEIGHT),
+                    rand.nextDouble() * 6 - 3, -(rand.nextDouble() * 5 + 15), 20);
+        }
+        // One physics step so every object has a previous position to sweep from (bounds large enough to keep all)
+        store.updateAndCull(1.0, Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2);
+        return store;
+    }
+
+    // A random walk of short drag segments across the panel
+    private static int[] swipe(Random rand) {
+        int[] points = new int[(SEGMENTS + 1) * 2];
+        int x = rand.nextInt(GamePanel.WIDTH);
+        int y = rand.nextInt(GamePanel.HEIGHT);
+        for (int i = 0; i <= SEGMENTS; i++) {
+            points[2 * i] = x;
+            points[2 * i + 1] = y;
+            x = Math.floorMod(x + rand.nextInt(41) - 20, GamePanel.WIDTH);
+            y = Math.floorMod(y + rand.nextInt(41) - 20, GamePanel.HEIGHT);
+        }
+        return points;
+    }
+
+    private static void verify(EntityStore store, SpatialGrid grid, int[] p) {
+        for (int s = 0; s < SEGMENTS; s++) {
+            int x1 = p[2 * s], y1 = p[2 * s + 1], x2 = p[2 * s + 2], y2 = p[2 * s + 3];
+            StringBuilder brute = new StringBuilder();
+            for (int i = 0; i < store.size(); i++) {
+                if (store.intersectsLine(i, x1, y1, x2, y2)) {
+                    brute.append(i).append(',');
+                }
+                if (store.sweptHitTime(i, x1, y1, x2, y2) >= 0) {
+                    brute.append(i).append('s');
+                }
+            }
+            StringBuilder fromGrid = new StringBuilder();
+            int count = grid.query(x1, y1, x2, y2);
+            for (int k = 0; k < count; k++) {
+                int i = grid.getResult(k);
+                if (store.intersectsLine(i, x1, y1, x2, y2)) {
+                    fromGrid.append(i).append(',');
+                }
+                if (store.sweptHitTime(i, x1, y1, x2, y2) >= 0) {
+                    fromGrid.append(i).append('s');
+                }
+            }
+            if (!brute.toString().equals(fromGrid.toString())) {
+                throw new IllegalStateException("grid hits differ from brute force: " + brute + " vs " + fromGrid);
+            }
+        }
+    }
+
+    private static long runBrute(EntityStore store, int[] p, int frames) {
+        long hits = 0;
+        for (int f = 0; f < frames; f++) {
+            for (int s = 0; s < SEGMENTS; s++) {
+                for (int i = 0; i < store.size(); i++) {
+                    if (store.sweptHitTime(i, p[2 * s], p[2 * s + 1], p[2 * s + 2], p[2 * s + 3]) >= 0) {
+                        hits++;
+                    }
+                }
+            }
+        }
+        return hits;
+    }
+
+    private static long runGrid(EntityStore store, SpatialGrid grid, int[] p, int frames) {
+        long hits = 0;
+        for (int f = 0; f < frames; f++) {
+            grid.rebuild(store);
+            for (int s = 0; s < SEGMENTS; s++) {
+                int count = grid.query(p[2 * s], p[2 * s + 1], p[2 * s + 2], p[2 * s + 3]);
+                for (int k = 0; k < count; k++) {
+                    if (store.sweptHitTime(grid.getResult(k), p[2 * s], p[2 * s + 1], p[2 * s + 2], p[2 * s + 3]) >= 0) {
+                        hits++;
+                    }
+                }
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,56 @@
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+// Objects drawn per frame within a 60 FPS budget, vector drawing (ovals + text every frame)
+// versus SpriteCache blits. Renders offscreen into a compatible image, so it runs headless too.
+public class SpriteBenchmark {
+    private static final double FRAME_BUDGET_NANOS = 1_000_000_000.0 / 60;
+    private static final int OBJECTS = 2000;
+    private static final int FRAMES = 200;
+
+    public static void main(String[] args) {
+        BufferedImage frame = new BufferedImage(GamePanel.WIDTH, GamePanel.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+        GraphicsConfiguration gc = g.getDeviceConfiguration();
+        // Match the screen's pixel layout when one is available
+        BufferedImage probe = gc.createCompatibleImage(1, 1, Transparency.OPAQUE);
+        if (probe.getType() != frame.getType()) {
+            g.dispose();
+            frame = gc.createCompatibleImage(GamePanel.WIDTH, GamePanel.HEIGHT, Transparency.OPAQUE);
+            g = frame.createGraphics();
+        }
+
+        Random rand = new Random(42);
+        EntityStore store = new EntityStore();
+        for (int i = 0; i < OBJECTS; i++) {
+            byte kind = (byte) rand.nextInt(3);
+            int type = kind == EntityStore.KIND_FRUIT ? rand.nextInt(Fruit.FruitType.values().length)
+                    : kind == EntityStore.KIND_BONUS ? rand.nextInt(BonusItem.BonusType.values().length) : 0;
+            store.spawn(kind, type, rand.nextInt(GamePanel.WIDTH), rand.nextInt(GamePanel.HEIGHT), 0, 0, 20);
+        }
+        SpriteCache sprites = new SpriteCache(20);
+        sprites.validate(g.getDeviceConfiguration());
+
+        double vector = 0, sprite = 0;
+        for (int round = 0; round < 3; round++) {   // first two rounds warm up the JIT and the pipelines
+            long t0 = System.nanoTime();
+            for (int f = 0; f < FRAMES; f++) {
+                store.draw(g, 1.0);
+            }
+            long t1 = System.nanoTime();
+            for (int f = 0; f < FRAMES; f++) {
+                store.draw(g, 1.0, sprites);
+            }
+            long t2 = System.nanoTime();
+            vector = (t1 - t0) / (double) FRAMES / OBJECTS;
+            sprite = (t2 - t1) / (double) FRAMES / OBJECTS;
+        }
+        g.dispose();
+        System.out.printf("%-8s %12s %18s%n", "path", "ns/object", "objects @ 60 FPS");
+        System.out.printf("%-8s %12.0f %18.0f%n", "vector", vector, FRAME_BUDGET_NANOS / vector);
+        System.out.printf("%-8s %12.0f %18.0f%n", "sprites", sprite, FRAME_BUDGET_NANOS / sprite);
+    }
+}
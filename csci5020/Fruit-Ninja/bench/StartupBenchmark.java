@@ -0,0 +1,112 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Time to first game frame of a fresh JVM: starts the packaged game (java -jar, as
+// game/fruit-ninja.sh does; AppCDS only archives classes loaded from jars) in child JVMs with
+// -Dfruitninja.exitAfterFirstFrame and reads the time Startup reports, in ms since each child's
+// JVM started. Without a display the children run the startup pipeline offscreen. The median of
+// the runs is taken for each combination of the warm-up (off with -Dfruitninja.warmup=0, or the
+// default) and a dynamic AppCDS archive (none, or one trained first the way game/fruit-ninja.sh
+// does), so each one's effect shows on its own. Exit status 1 if
+//   - the default launch is more than WARMUP_TOLERANCE_MILLIS behind the one without warm-up
+//     (the warm-up runs beside the game and must not hold up its first frame)
+//   - the AppCDS launch misses TARGET_MILLIS
+//
+// Usage: java StartupBenchmark [runs [jar]]   (default game/target/fruit-ninja.jar, from mvn -B package)
+public class StartupBenchmark {
+    // A plain launch without warm-up took 800-950 ms (medians 880-900 ms) to its first game frame
+    // on a single-core test box, where the AppCDS launch took 690-770 ms; it has to beat the plain one
+    private static final long TARGET_MILLIS = 850;
+    private static final long WARMUP_TOLERANCE_MILLIS = 50;
+    private static final Pattern REPORT = Pattern.compile("first game frame (\\d+) ms");
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        File jar = new File(args.length > 1 ? args[1] : "game/target/fruit-ninja.jar");
+        if (!jar.isFile()) {
+            System.err.println(jar + " not found; build it with mvn -B package");
+            System.exit(2);
+        }
+        File archive = File.createTempFile("fruitninja-startup", ".jsa");
+        File scores = File.createTempFile("fruitninja-startup", ".log");
+        archive.delete();   // the JVM writes it at the training run's exit
+        archive.deleteOnExit();
+        scores.deleteOnExit();
+
+        launch(jar, scores, "-XX:ArchiveClassesAtExit=" + archive.getPath());
+        if (!archive.isFile()) {
+            System.out.println("FAILED: training run wrote no AppCDS archive");
+            System.exit(1);
+        }
+        System.out.printf("AppCDS archive: %d KB%n", archive.length() / 1024);
+
+        String useArchive = "-XX:SharedArchiveFile=" + archive.getPath();
+        long bare = median(runs, jar, scores, "-Dfruitninja.warmup=0");
+        long warmup = median(runs, jar, scores);
+        long cdsOnly = median(runs, jar, scores, useArchive, "-Xshare:on", "-Dfruitninja.warmup=0");
+        long cds = median(runs, jar, scores, useArchive, "-Xshare:on");
+        System.out.printf("first game frame, median of %d runs (ms):%n", runs);
+        System.out.printf("                 no warm-up   warm-up%n");
+        System.out.printf("  no AppCDS      %10d %9d%n", bare, warmup);
+        System.out.printf("  AppCDS         %10d %9d   (target %d)%n", cdsOnly, cds, TARGET_MILLIS);
+        boolean passed = true;
+        if (warmup > bare + WARMUP_TOLERANCE_MILLIS) {
+            System.out.println("FAILED: the warm-up delays the first game frame");
+            passed = false;
+        }
+        if (cds > TARGET_MILLIS) {
+            System.out.println("FAILED: first game frame later than the target");
+            passed = false;
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static long median(int runs, File jar, File scores, String... options) throws IOException, InterruptedException {
+        long[] millis = new long[runs];
+        for (int r = 0; r < runs; r++) {
+            millis[r] = launch(jar, scores, options);
+        }
+        Arrays.sort(millis);
+        return millis[runs / 2];
+    }
+
+    // Start the game in a child JVM up to its first frame; returns when that came, in ms after JVM start
+    private static long launch(File jar, File scores, String... options) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(Arrays.asList(options));
+        command.add("-Dfruitninja.startupReport=true");
+        command.add("-Dfruitninja.exitAfterFirstFrame=true");
+        command.add("-Dfruitninja.scores=" + scores.getPath());
+        command.add("-jar");
+        command.add(jar.getPath());
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long millis = -1;
+        BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                Matcher m = REPORT.matcher(line);
+                if (m.find()) {
+                    millis = Long.parseLong(m.group(1));
+                }
+            }
+        } finally {
+            in.close();
+        }
+        int status = process.waitFor();
+        if (status != 0 || millis < 0) {
+            System.out.println("FAILED: " + String.join(" ", command) + " exited with " + status
+                    + (millis < 0 ? " and no startup report" : ""));
+            System.exit(1);
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,33 @@
+#!/bin/sh
+# Launch the packaged game (mvn -B package) with an AppCDS archive of the classes it loads up to
+# its first frame, so the JVM maps them in instead of loading and verifying them one by one. The
+# archive is made by a training run on first launch, and again whenever the jar is rebuilt (the
+# JVM would ignore a stale one). The training run starts the game up to its first frame and exits;
+# without a display it runs offscreen. See bench/StartupBenchmark for the measured gain.
+#
+#   game/fruit-ninja.sh [JVM options, e.g. -Dfruitninja.fullscreen=true]
+#
+# FRUITNINJA_CDS=off launches without the archive; FRUITNINJA_JAVA picks the java binary (JDK 17+).
+set -e
+DIR=$(cd "$(dirname "$0")" && pwd)
+JAR="$DIR/target/fruit-ninja.jar"
+ARCHIVE="$DIR/target/fruit-ninja.jsa"
+JAVA=${FRUITNINJA_JAVA:-java}
+
+if [ ! -f "$JAR" ]; then
+    echo "$JAR not found; build it with mvn -B package" >&2
+    exit 1
+fi
+if [ "$FRUITNINJA_CDS" = off ]; then
+    exec "$JAVA" "$@" -jar "$JAR"
+fi
+if [ ! -f "$ARCHIVE" ] || [ "$JAR" -nt "$ARCHIVE" ]; then
+    rm -f "$ARCHIVE"
+    "$JAVA" -XX:ArchiveClassesAtExit="$ARCHIVE" -Dfruitninja.exitAfterFirstFrame=true \
+        -Dfruitninja.scores="${TMPDIR:-/tmp}/fruit-ninja-cds-training.log" -jar "$JAR" >/dev/null 2>&1 \
+        || echo "AppCDS training failed; starting without the archive" >&2
+fi
+if [ -f "$ARCHIVE" ]; then
+    exec "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto "$@" -jar "$JAR"
+fi
+exec "$JAVA" "$@" -jar "$JAR"
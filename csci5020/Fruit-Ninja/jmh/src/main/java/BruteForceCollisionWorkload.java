@@ -0,0 +1,24 @@
+// Every swipe segment tested against every object with the point-in-time circle test
+public class BruteForceCollisionWorkload implements fruitninja.jmh.Workload {
+    private CollisionScene scene;
+
+    @Override
+    public void setUp(int objects, int segments) {
+        scene = new CollisionScene(objects, segments);
+    }
+
+    @Override
+    public long run() {
+        EntityStore store = scene.store;
+        int[] seg = scene.segments;
+        long hits = 0;
+        for (int s = 0; s < seg.length; s += 4) {
+            for (int i = 0; i < store.size(); i++) {
+                if (store.intersectsLine(i, seg[s], seg[s + 1], seg[s + 2], seg[s + 3])) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+}
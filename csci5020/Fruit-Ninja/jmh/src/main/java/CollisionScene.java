@@ -0,0 +1,33 @@
+import java.util.Random;
+
+// Shared input of the collision workloads: objects spread over the screen after one physics tick
+// (so each has a last-tick path for the swept test) and short swipe segments like mouse drag events
+final class CollisionScene {
+    private static final int SEGMENT_LENGTH = 30; // px, a typical distance between two drag events
+
+    final EntityStore store;
+    final int[] segments; // x1, y1, x2, y2 per segment
+
+    CollisionScene(int objects, int segmentCount) {
+        Random rand = new Random(42);
+        store = new EntityStore(objects);
+        int margin = 2 * GameSimulation.OBJECT_RADIUS;
+        for (int i = 0; i < objects; i++) {
+            store.spawn(EntityStore.KIND_FRUIT, 0,
+                    margin + rand.nextInt(GameSimulation.WIDTH - 2 * margin),
+                    margin + rand.nextInt(GameSimulation.HEIGHT - 2 * margin),
+                    rand.nextDouble() * 6 - 3, rand.nextDouble() * 20 - 10, GameSimulation.OBJECT_RADIUS);
+        }
+        store.updateAndCull(1.0, GameSimulation.WIDTH, GameSimulation.HEIGHT);
+        segments = new int[segmentCount * 4];
+        for (int s = 0; s < segmentCount; s++) {
+            int x = rand.nextInt(GameSimulation.WIDTH);
+            int y = rand.nextInt(GameSimulation.HEIGHT);
+            double angle = rand.nextDouble() * 2 * Math.PI;
+            segments[4 * s] = x;
+            segments[4 * s + 1] = y;
+            segments[4 * s + 2] = x + (int) (Math.cos(angle) * SEGMENT_LENGTH);
+            segments[4 * s + 3] = y + (int) (Math.sin(angle) * SEGMENT_LENGTH);
+        }
+    }
+}
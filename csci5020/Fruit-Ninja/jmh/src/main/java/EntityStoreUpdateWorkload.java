@@ -0,0 +1,31 @@
+import java.util.Random;
+
+// Physics tick over the struct-of-arrays EntityStore (fused update and cull, as GameSimulation runs it).
+// Culled objects are relaunched after each tick so the population stays at the requested size.
+public class EntityStoreUpdateWorkload implements fruitninja.jmh.Workload {
+    private final Random rand = new Random(42);
+    private EntityStore store;
+    private int objects;
+
+    @Override
+    public void setUp(int objects, int segments) {
+        this.objects = objects;
+        store = new EntityStore(objects);
+        refill();
+    }
+
+    @Override
+    public long run() {
+        int missed = store.updateAndCull(1.0, GameSimulation.WIDTH, GameSimulation.HEIGHT);
+        refill();
+        return missed;
+    }
+
+    private void refill() {
+        while (store.size() < objects) {
+            store.spawn(EntityStore.KIND_FRUIT, rand.nextInt(Fruit.FruitType.values().length),
+                    rand.nextInt(GameSimulation.WIDTH), rand.nextInt(GameSimulation.HEIGHT),
+                    rand.nextDouble() * 6 - 3, -(rand.nextDouble() * 20), GameSimulation.OBJECT_RADIUS);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Spawning the way GamePanel did before the EntityStore: a new Fruit, Bomb or BonusItem per launch
+public class GameObjectSpawnWorkload implements fruitninja.jmh.Workload {
+    private final Random rand = new Random(42);
+    private final List<GameObject> list = new ArrayList<>();
+    private int objects;
+
+    @Override
+    public void setUp(int objects, int segments) {
+        this.objects = objects;
+    }
+
+    @Override
+    public long run() {
+        list.clear();
+        for (int i = 0; i < objects; i++) {
+            int xPos = rand.nextInt(GameSimulation.WIDTH - 100) + 50;
+            int yPos = GameSimulation.HEIGHT + 10;
+            double initVy = -(rand.nextDouble() * 5 + 15);
+            double initVx = rand.nextDouble() * 6 - 3;
+            double r = rand.nextDouble();
+            if (r < 0.70) {
+                list.add(new Fruit(xPos, yPos, initVx, initVy,
+                        Fruit.FruitType.values()[rand.nextInt(Fruit.FruitType.values().length)]));
+            } else if (r < 0.85) {
+                list.add(new Bomb(xPos, yPos, initVx, initVy));
+            } else {
+                list.add(new BonusItem(xPos, yPos, initVx, initVy,
+                        BonusItem.BonusType.values()[rand.nextInt(BonusItem.BonusType.values().length)]));
+            }
+        }
+        return list.size();
+    }
+}
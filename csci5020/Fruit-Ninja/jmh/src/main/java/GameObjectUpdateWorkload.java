@@ -0,0 +1,45 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+// Physics tick over a List<GameObject>, the way GamePanel updated objects before the EntityStore:
+// one virtual update per object, then an iterator pass removing objects that left the screen.
+public class GameObjectUpdateWorkload implements fruitninja.jmh.Workload {
+    private final Random rand = new Random(42);
+    private final List<GameObject> list = new ArrayList<>();
+    private int objects;
+
+    @Override
+    public void setUp(int objects, int segments) {
+        this.objects = objects;
+        list.clear();
+        refill();
+    }
+
+    @Override
+    public long run() {
+        for (GameObject obj : list) {
+            obj.update(1.0);
+        }
+        long missed = 0;
+        Iterator<GameObject> it = list.iterator();
+        while (it.hasNext()) {
+            GameObject obj = it.next();
+            if (obj.isOffScreen(GameSimulation.WIDTH, GameSimulation.HEIGHT)) {
+                it.remove();
+                missed++;
+            }
+        }
+        refill();
+        return missed;
+    }
+
+    private void refill() {
+        while (list.size() < objects) {
+            list.add(new Fruit(rand.nextInt(GameSimulation.WIDTH), rand.nextInt(GameSimulation.HEIGHT),
+                    rand.nextDouble() * 6 - 3, -(rand.nextDouble() * 20),
+                    Fruit.FruitType.values()[rand.nextInt(Fruit.FruitType.values().length)]));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+// The game's collision path: one SpatialGrid rebuild per tick, then a swept query per swipe segment
+public class GridSweptCollisionWorkload implements fruitninja.jmh.Workload {
+    private final SweptCollision collider = new SweptCollision();
+    private CollisionScene scene;
+    private SpatialGrid grid;
+
+    @Override
+    public void setUp(int objects, int segments) {
+        scene = new CollisionScene(objects, segments);
+        grid = new SpatialGrid(GameSimulation.WIDTH, GameSimulation.HEIGHT, GameSimulation.OBJECT_RADIUS * 2);
+    }
+
+    @Override
+    public long run() {
+        EntityStore store = scene.store;
+        int[] seg = scene.segments;
+        grid.rebuild(store);
+        long hits = 0;
+        for (int s = 0; s < seg.length; s += 4) {
+            hits += collider.collide(store, grid, seg[s], seg[s + 1], seg[s + 2], seg[s + 3]);
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,34 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+// A full GamePanel frame (background, sprites, HUD) painted into an offscreen image.
+// The panel's game loop is never started, so the scene stays exactly as set up.
+public class PaintComponentWorkload implements fruitninja.jmh.Workload {
+    private BufferedImage image;
+    private Graphics2D g;
+    private GamePanel panel;
+
+    @Override
+    public void setUp(int objects, int segments) {
+        Random rand = new Random(42);
+        panel = new GamePanel(42, false);
+        panel.setSize(GamePanel.WIDTH, GamePanel.HEIGHT);
+        EntityStore store = panel.getSimulation().getObjects();
+        for (int i = 0; i < objects; i++) {
+            byte kind = (byte) rand.nextInt(3);
+            int types = kind == EntityStore.KIND_FRUIT ? Fruit.FruitType.values().length
+                    : kind == EntityStore.KIND_BONUS ? BonusItem.BonusType.values().length : 1;
+            store.spawn(kind, rand.nextInt(types), rand.nextInt(GamePanel.WIDTH), rand.nextInt(GamePanel.HEIGHT),
+                    0, 0, GameSimulation.OBJECT_RADIUS);
+        }
+        image = new BufferedImage(GamePanel.WIDTH, GamePanel.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g = image.createGraphics();
+    }
+
+    @Override
+    public long run() {
+        panel.paintComponent(g);
+        return image.getRGB(GamePanel.WIDTH / 2, GamePanel.HEIGHT / 2);
+    }
+}
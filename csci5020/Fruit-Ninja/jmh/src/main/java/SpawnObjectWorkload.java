@@ -0,0 +1,20 @@
+// Spawning through GameSimulation.spawnObject into reused EntityStore slots
+public class SpawnObjectWorkload implements fruitninja.jmh.Workload {
+    private final GameSimulation simulation = new GameSimulation(42);
+    private int objects;
+
+    @Override
+    public void setUp(int objects, int segments) {
+        this.objects = objects;
+    }
+
+    @Override
+    public long run() {
+        EntityStore store = simulation.getObjects();
+        store.clear();
+        for (int i = 0; i < objects; i++) {
+            simulation.spawnObject();
+        }
+        return store.size();
+    }
+}
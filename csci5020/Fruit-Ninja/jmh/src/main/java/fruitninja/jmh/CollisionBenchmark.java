@@ -0,0 +1,49 @@
+package fruitninja.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// N objects x M swipe segments: brute-force intersectsLine over every object, versus the
+// game's path (SpatialGrid rebuild + swept SweptCollision per segment)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    int objects;
+
+    @Param({"1", "16", "200"})
+    int segments;
+
+    private Workload bruteForce;
+    private Workload gridSwept;
+
+    @Setup
+    public void setUp() {
+        bruteForce = Workloads.create("BruteForceCollisionWorkload", objects, segments);
+        gridSwept = Workloads.create("GridSweptCollisionWorkload", objects, segments);
+    }
+
+    @Benchmark
+    public long bruteForce() {
+        return bruteForce.run();
+    }
+
+    @Benchmark
+    public long gridSwept() {
+        return gridSwept.run();
+    }
+}
@@ -0,0 +1,47 @@
+package fruitninja.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One physics tick over N entities: the EntityStore fused update+cull pass versus calling
+// GameObject.update on a List<GameObject> (the layout GamePanel used before the entity store)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhysicsBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    int objects;
+
+    private Workload entityStore;
+    private Workload gameObjectList;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        entityStore = Workloads.create("EntityStoreUpdateWorkload", objects, 0);
+        gameObjectList = Workloads.create("GameObjectUpdateWorkload", objects, 0);
+    }
+
+    @Benchmark
+    public long entityStore() {
+        return entityStore.run();
+    }
+
+    @Benchmark
+    public long gameObjectList() {
+        return gameObjectList.run();
+    }
+}
@@ -0,0 +1,42 @@
+package fruitninja.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Cost and allocation rate of spawning 100 objects: GameSimulation.spawnObject into pooled store
+// slots versus constructing Fruit/Bomb/BonusItem objects. Run with -prof gc for bytes per op.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnBenchmark {
+    private Workload spawnObject;
+    private Workload gameObjectConstructors;
+
+    @Setup
+    public void setUp() {
+        spawnObject = Workloads.create("SpawnObjectWorkload", 100, 0);
+        gameObjectConstructors = Workloads.create("GameObjectSpawnWorkload", 100, 0);
+    }
+
+    @Benchmark
+    public long spawnObject() {
+        return spawnObject.run();
+    }
+
+    @Benchmark
+    public long gameObjectConstructors() {
+        return gameObjectConstructors.run();
+    }
+}
@@ -0,0 +1,11 @@
+package fruitninja.jmh;
+
+// One measured operation on the game code. Implementations live in the default package next to
+// the game classes (JMH benchmarks cannot, and named packages cannot see default-package types).
+public interface Workload {
+    // Build the scene: objects live entities and, where it applies, segments swipe segments per run
+    void setUp(int objects, int segments);
+
+    // Run the operation once; the result is consumed by JMH so the work cannot be eliminated
+    long run();
+}
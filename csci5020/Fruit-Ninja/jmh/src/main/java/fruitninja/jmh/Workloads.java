@@ -0,0 +1,17 @@
+package fruitninja.jmh;
+
+// Creates default-package Workload implementations by class name
+final class Workloads {
+    private Workloads() {
+    }
+
+    static Workload create(String className, int objects, int segments) {
+        try {
+            Workload workload = (Workload) Class.forName(className).getDeclaredConstructor().newInstance();
+            workload.setUp(objects, segments);
+            return workload;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot create workload " + className, e);
+        }
+    }
+}
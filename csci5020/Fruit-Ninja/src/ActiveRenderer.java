@@ -0,0 +1,99 @@
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.image.VolatileImage;
+import javax.swing.JComponent;
+
+// Active rendering into an accelerated VolatileImage back buffer that is blitted straight onto a
+// component, bypassing the RepaintManager. Called from the game loop thread, so every call to
+// present() puts exactly one frame on screen. The back buffer keeps its contents between frames,
+// so the scene is drawn once, clipped to the bounds of the damaged rectangles, and only those
+// rectangles are copied to the screen.
+public class ActiveRenderer {
+    // Draws one frame into the back buffer; only the clip area has to be correct afterwards
+    public interface Scene {
+        void paintScene(Graphics2D g);
+    }
+
+    private final JComponent target;
+    private final Scene scene;
+    private VolatileImage buffer;
+    private final Rectangle clip = new Rectangle();
+
+    public ActiveRenderer(JComponent target, Scene scene) {
+        this.target = target;
+        this.scene = scene;
+    }
+
+    // Render and show one frame, redrawing only damage unless it is full; returns false if the
+    // component is not displayable yet
+    public boolean present(DamageRegion damage) {
+        GraphicsConfiguration gc = target.getGraphicsConfiguration();
+        int width = target.getWidth();
+        int height = target.getHeight();
+        if (gc == null || width <= 0 || height <= 0) {
+            return false;
+        }
+        boolean full = damage.isFull();
+        boolean lost;
+        do {
+            // (Re)create the back buffer if it was never made, the size changed or the display changed
+            if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+                if (buffer != null) {
+                    buffer.flush();
+                }
+                buffer = gc.createCompatibleVolatileImage(width, height);
+                full = true;
+            } else {
+                int state = buffer.validate(gc);
+                if (state == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    buffer.flush();
+                    buffer = gc.createCompatibleVolatileImage(width, height);
+                    full = true;
+                } else if (state == VolatileImage.IMAGE_RESTORED) {
+                    full = true; // contents were lost
+                }
+            }
+            // One pass over the scene whatever the number of rectangles; what it redraws between them
+            // is unchanged, so drawing it again is harmless
+            if (full) {
+                clip.setBounds(0, 0, width, height);
+            } else {
+                damage.getBounds(clip);
+            }
+            if (!clip.isEmpty()) {
+                Graphics2D g = buffer.createGraphics();
+                try {
+                    g.setClip(clip.x, clip.y, clip.width, clip.height);
+                    scene.paintScene(g);
+                } finally {
+                    g.dispose();
+                }
+            }
+            Graphics screen = target.getGraphics();
+            if (screen == null) {
+                return false;
+            }
+            try {
+                if (full) {
+                    screen.drawImage(buffer, 0, 0, null);
+                } else {
+                    for (int k = 0; k < damage.getCount(); k++) {
+                        int x = damage.getX(k), y = damage.getY(k);
+                        int x2 = x + damage.getWidth(k), y2 = y + damage.getHeight(k);
+                        screen.drawImage(buffer, x, y, x2, y2, x, y, x2, y2, null);
+                    }
+                }
+            } finally {
+                screen.dispose();
+            }
+            // Flush the window system's queue so the frame is shown now rather than batched
+            Toolkit.getDefaultToolkit().sync();
+            lost = buffer.contentsLost();
+            full |= lost;
+        } while (lost);
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.Random;
+
+// Weighted random choice in O(1) with Vose's alias method: index i is picked with probability
+// weights[i] / sum(weights). Building the table is O(n); each sample then costs one nextInt and
+// one nextDouble, whatever the number of choices or the shape of the weights.
+public class AliasTable {
+    private final double[] prob;   // chance of keeping column i rather than taking its alias
+    private final int[] alias;     // other choice sharing column i
+
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        double sum = 0;
+        for (double w : weights) {
+            if (!(w >= 0) || Double.isInfinite(w)) {
+                throw new IllegalArgumentException("weights must be finite and non-negative");
+            }
+            sum += w;
+        }
+        if (n == 0 || sum <= 0) {
+            throw new IllegalArgumentException("at least one weight must be positive");
+        }
+        prob = new double[n];
+        alias = new int[n];
+        // Scale so the average column holds exactly 1, then let every under-full column borrow
+        // its remainder from an over-full one
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0, largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            prob[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = scaled[l] + scaled[s] - 1;
+            if (scaled[l] < 1) {
+                small[smallCount++] = l;
+            } else {
+                large[largeCount++] = l;
+            }
+        }
+        // Whatever is left is full up to rounding error
+        while (largeCount > 0) {
+            int l = large[--largeCount];
+            prob[l] = 1;
+            alias[l] = l;
+        }
+        while (smallCount > 0) {
+            int s = small[--smallCount];
+            prob[s] = 1;
+            alias[s] = s;
+        }
+    }
+
+    public int sample(Random rand) {
+        int i = rand.nextInt(prob.length);
+        return rand.nextDouble() < prob[i] ? i : alias[i];
+    }
+
+    public int size() {
+        return prob.length;
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.Random;
+
+// Scripted player for headless runs: waits for a fruit near the top of its arc and cuts a short
+// horizontal swipe through it, skipping fruits that have a bomb close by. skill is the chance of
+// going for a target when one is available; the rest of the time the player hesitates for a moment.
+public class AutoSwiper implements GameSimulation.Input {
+    private static final int SWIPE_HALF_LENGTH = 40;   // px either side of the target
+    private static final int BOMB_CLEARANCE = 80;      // skip targets with a bomb this close
+    private static final int COOLDOWN_TICKS = 5;       // pause between swipes
+    private static final int HESITATE_TICKS = 20;      // pause after deciding not to swipe
+
+    private final Random rand;
+    private final double skill;
+    private int cooldown;
+
+    public AutoSwiper(long seed, double skill) {
+        this.rand = new Random(seed);
+        this.skill = skill;
+    }
+
+    @Override
+    public void beforeTick(GameSimulation simulation) {
+        if (cooldown > 0) {
+            cooldown--;
+            return;
+        }
+        EntityStore objects = simulation.getObjects();
+        int target = findTarget(objects);
+        if (target < 0) {
+            return;
+        }
+        if (rand.nextDouble() >= skill) {
+            cooldown = HESITATE_TICKS;
+            return;
+        }
+        int x = (int) objects.getX(target);
+        int y = (int) objects.getY(target);
+        simulation.swipeStart(x - SWIPE_HALF_LENGTH, y);
+        simulation.swipeMove(x, y);
+        simulation.swipeMove(x + SWIPE_HALF_LENGTH, y);
+        simulation.swipeEnd();
+        cooldown = COOLDOWN_TICKS;
+    }
+
+    // Highest on-screen fruit that is about to fall and has no bomb nearby, or -1
+    private int findTarget(EntityStore objects) {
+        int best = -1;
+        for (int i = 0; i < objects.size(); i++) {
+            if (objects.getKind(i) != EntityStore.KIND_FRUIT || objects.isSliced(i)
+                    || objects.getVy(i) < -2 || objects.getY(i) > GameSimulation.HEIGHT - GameSimulation.OBJECT_RADIUS) {
+                continue;
+            }
+            if (best >= 0 && objects.getY(i) >= objects.getY(best)) {
+                continue;
+            }
+            if (!bombNear(objects, objects.getX(i), objects.getY(i))) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private boolean bombNear(EntityStore objects, double x, double y) {
+        for (int i = 0; i < objects.size(); i++) {
+            if (objects.getKind(i) == EntityStore.KIND_BOMB
+                    && Math.abs(objects.getX(i) - x) < BOMB_CLEARANCE && Math.abs(objects.getY(i) - y) < BOMB_CLEARANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Runs many independent headless games in parallel for balancing and reports throughput and the
+// score distribution. Game i uses seed baseSeed + i for both the game and its AutoSwiper, so any
+// single game can be re-run exactly.
+//
+// Usage: java BatchRunner [games] [skill 0..1] [baseSeed] [threads]
+public class BatchRunner {
+    private static final long MAX_TICKS = 10L * 60 * GameLoop.TICKS_PER_SECOND; // stop games after 10 minutes
+    private static final int GAMES_PER_TASK = 64;   // games below which a task runs them itself
+    private static final int HISTOGRAM_BUCKET = 50; // score points per histogram bar
+
+    private final int[] scores;
+    private final long[] ticks;
+    private final double skill;
+    private final long baseSeed;
+
+    public BatchRunner(int games, double skill, long baseSeed) {
+        this.scores = new int[games];
+        this.ticks = new long[games];
+        this.skill = skill;
+        this.baseSeed = baseSeed;
+    }
+
+    // Play game number i to the end (or MAX_TICKS) and record its score
+    private void play(int i) {
+        long seed = baseSeed + i;
+        GameSimulation simulation = new GameSimulation(seed);
+        AutoSwiper player = new AutoSwiper(seed, skill);
+        while (!simulation.isGameOver() && simulation.getTickCount() < MAX_TICKS) {
+            simulation.step(player);
+        }
+        scores[i] = simulation.getScore();
+        ticks[i] = simulation.getTickCount();
+    }
+
+    // Fork/join split of the game range across the pool
+    @SuppressWarnings("serial") // never serialized
+    private class Games extends RecursiveAction {
+        private final int from, to;
+
+        Games(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    play(i);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Games(from, mid), new Games(mid, to));
+            }
+        }
+    }
+
+    public void run(int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new Games(0, scores.length));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        double skill = args.length > 1 ? Double.parseDouble(args[1]) : 0.8;
+        long baseSeed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        if (games <= 0 || threads <= 0) {
+            System.err.println("Usage: java BatchRunner [games] [skill 0..1] [baseSeed] [threads]");
+            System.exit(2);
+        }
+
+        BatchRunner runner = new BatchRunner(games, skill, baseSeed);
+        long start = System.nanoTime();
+        runner.run(threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        runner.report(seconds, threads);
+    }
+
+    private void report(double seconds, int threads) {
+        int games = scores.length;
+        long totalTicks = 0;
+        long totalScore = 0;
+        for (int i = 0; i < games; i++) {
+            totalTicks += ticks[i];
+            totalScore += scores[i];
+        }
+        int[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%d games on %d threads in %.2f s: %.0f games/s, %.2fM ticks/s%n",
+                games, threads, seconds, games / seconds, totalTicks / seconds / 1e6);
+        System.out.printf("score mean %.1f  min %d  p50 %d  p90 %d  p99 %d  max %d  (mean length %.1f s)%n",
+                totalScore / (double) games, sorted[0], percentile(sorted, 0.50), percentile(sorted, 0.90),
+                percentile(sorted, 0.99), sorted[games - 1],
+                totalTicks / (double) games / GameLoop.TICKS_PER_SECOND);
+        // Score histogram
+        int buckets = sorted[games - 1] / HISTOGRAM_BUCKET + 1;
+        int[] counts = new int[buckets];
+        int maxCount = 0;
+        for (int score : sorted) {
+            maxCount = Math.max(maxCount, ++counts[score / HISTOGRAM_BUCKET]);
+        }
+        for (int b = 0; b < buckets; b++) {
+            int bar = (int) Math.round(50.0 * counts[b] / maxCount);
+            System.out.printf("%5d-%-5d %8d %s%n", b * HISTOGRAM_BUCKET, (b + 1) * HISTOGRAM_BUCKET - 1, counts[b],
+                    "#".repeat(bar));
+        }
+    }
+
+    private static int percentile(int[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+}
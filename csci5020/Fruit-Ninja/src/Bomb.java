@@ -7,10 +7,15 @@ public class Bomb extends GameObject {
     }
     @Override
     public void draw(Graphics g) {
+        draw(g, (int)x, (int)y, radius);
+    }
+
+    // Renderer shared with EntityStore, which keeps bombs as plain array slots
+    public static void draw(Graphics g, int x, int y, int radius) {
         // Draw bomb as a black circle with a white "B" on it
         g.setColor(Color.BLACK);
-        g.fillOval((int)(x - radius), (int)(y - radius), radius * 2, radius * 2);
+        g.fillOval(x - radius, y - radius, radius * 2, radius * 2);
         g.setColor(Color.WHITE);
-        g.drawString("B", (int)x - 4, (int)y + 4);
+        g.drawString("B", x - 4, y + 4);
     }
 }
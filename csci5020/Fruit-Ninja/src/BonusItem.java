@@ -8,16 +8,20 @@ public class BonusItem extends GameObject {
     private BonusType bonusType;
     private int pointValue;
     
-    public BonusItem(int x, int y, double vx, double vy) {
+    // The caller picks the (random) type from its own seeded source, so games stay reproducible
+    public BonusItem(int x, int y, double vx, double vy, BonusType bonusType) {
         super(x, y, vx, vy, 20);
-        // Randomly choose type of bonus
-        bonusType = Math.random() < 0.5 ? BonusType.EXTRA_LIFE : BonusType.SLOW_MOTION;
-        // Assign appearance and points based on type
-        if (bonusType == BonusType.EXTRA_LIFE) {
-            pointValue = 0; // no points, just a life reward
-        } else if (bonusType == BonusType.SLOW_MOTION) {
-            pointValue = 5; // slicing slow-motion bonus gives some points
+        this.bonusType = bonusType;
+        // Assign points based on type
+        pointValue = getPointValue(bonusType);
+    }
+
+    // Points awarded for slicing a bonus of the given type
+    public static int getPointValue(BonusType bonusType) {
+        if (bonusType == BonusType.SLOW_MOTION) {
+            return 5; // slicing slow-motion bonus gives some points
         }
+        return 0; // extra life: no points, just a life reward
     }
     
     public BonusType getBonusType() {
@@ -29,18 +33,23 @@ public class BonusItem extends GameObject {
     
     @Override
     public void draw(Graphics g) {
+        draw(g, bonusType, (int)x, (int)y, radius);
+    }
+
+    // Renderer shared with EntityStore, which keeps bonuses as plain array slots
+    public static void draw(Graphics g, BonusType bonusType, int x, int y, int radius) {
         if (bonusType == BonusType.EXTRA_LIFE) {
             // Draw life bonus as a pink circle with "+1"
             g.setColor(Color.PINK);
-            g.fillOval((int)(x - radius), (int)(y - radius), radius * 2, radius * 2);
+            g.fillOval(x - radius, y - radius, radius * 2, radius * 2);
             g.setColor(Color.WHITE);
-            g.drawString("+1", (int)x - 6, (int)y + 4);
+            g.drawString("+1", x - 6, y + 4);
         } else if (bonusType == BonusType.SLOW_MOTION) {
             // Draw slow-motion bonus as a cyan circle with "S"
             g.setColor(Color.CYAN);
-            g.fillOval((int)(x - radius), (int)(y - radius), radius * 2, radius * 2);
+            g.fillOval(x - radius, y - radius, radius * 2, radius * 2);
             g.setColor(Color.BLUE.darker());
-            g.drawString("S", (int)x - 4, (int)y + 5);
+            g.drawString("S", x - 4, y + 5);
         }
     }
 }
@@ -0,0 +1,212 @@
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+// Synthetic player that drives the game through the same input pipeline as the mouse: a Planner
+// picks the points one swipe should pass through, and the bot's own thread plays it back as
+// PRESS, DRAG and RELEASE records in an InputQueue at a fixed event rate (e.g. 1000 drags/s),
+// moving the blade at the skill's speed. The game loop drains that queue with the mouse queue,
+// so bot swipes are recorded, drawn and collided exactly like real ones. Nothing is allocated
+// per swipe, so a bot can play for hours without disturbing a soak run's memory figures.
+//
+// GamePanel starts one with -Dfruitninja.bot=<skill> and -Dfruitninja.bot.rate=<events/s>.
+public class BotPlayer implements Runnable {
+    // Plans swipes for a bot; TrajectoryPlanner is the default
+    public interface Planner {
+        // Fill xs/ys with the points (world units) of the next swipe, starting reaction ticks from
+        // now, and return how many there are; fewer than two means nothing worth cutting yet.
+        // Called with the game's state lock held, so the simulation is stable while planning.
+        int plan(GameSimulation simulation, Skill skill, int[] xs, int[] ys);
+    }
+
+    // How well the bot plays: reaction time before a planned swipe starts, blade speed, aiming
+    // error, fruits chained into one swipe, extra distance kept from bombs, rest between swipes
+    public enum Skill {
+        NOVICE(15, 15, 10, 1, 10, 40),
+        CASUAL(10, 25, 5, 2, 30, 20),
+        EXPERT(5, 40, 2, 4, 50, 6),
+        PERFECT(0, 60, 0, 8, 70, 0);
+
+        private final int reactionTicks;
+        private final double speed;          // world units per tick
+        private final double aimError;       // standard deviation of each point, world units
+        private final int maxTargets;
+        private final int bombClearance;     // world units between the blade and a bomb's edge
+        private final int pauseTicks;
+
+        Skill(int reactionTicks, double speed, double aimError, int maxTargets, int bombClearance, int pauseTicks) {
+            this.reactionTicks = reactionTicks;
+            this.speed = speed;
+            this.aimError = aimError;
+            this.maxTargets = maxTargets;
+            this.bombClearance = bombClearance;
+            this.pauseTicks = pauseTicks;
+        }
+
+        public int getReactionTicks() {
+            return reactionTicks;
+        }
+        public double getSpeed() {
+            return speed;
+        }
+        public double getAimError() {
+            return aimError;
+        }
+        public int getMaxTargets() {
+            return maxTargets;
+        }
+        public int getBombClearance() {
+            return bombClearance;
+        }
+        public int getPauseTicks() {
+            return pauseTicks;
+        }
+    }
+
+    public static final int DEFAULT_EVENTS_PER_SECOND = 500;
+    private static final int MAX_POINTS = 16;   // lead-in, up to PERFECT's targets, lead-out
+
+    private final Planner planner;
+    private final Skill skill;
+    private final long eventNanos;              // time between two input records
+    private final InputQueue queue;             // this thread is its only producer
+    private final Object lock;                  // guards simulation
+    private final GameSimulation simulation;
+    private final Random rand;
+    private final int[] xs = new int[MAX_POINTS];
+    private final int[] ys = new int[MAX_POINTS];
+    private volatile Thread thread;
+    private long deadline;                      // when the next record is due
+
+    // Counters, written by the bot thread
+    private volatile long swipes;
+    private volatile long events;
+    private volatile long dropped;
+
+    public BotPlayer(Planner planner, Skill skill, int eventsPerSecond, InputQueue queue, Object lock,
+                     GameSimulation simulation, long seed) {
+        this.planner = planner;
+        this.skill = skill;
+        this.eventNanos = 1_000_000_000L / eventsPerSecond;
+        this.queue = queue;
+        this.lock = lock;
+        this.simulation = simulation;
+        this.rand = new Random(seed);
+    }
+
+    // Skill named by a system property value ("expert"), or null if there is no such level
+    public static Skill parseSkill(String name) {
+        for (Skill skill : Skill.values()) {
+            if (skill.name().equalsIgnoreCase(name.trim())) {
+                return skill;
+            }
+        }
+        return null;
+    }
+
+    public void start() {
+        Thread t = new Thread(this, "bot-player");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    public void stop() {
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        Thread self = Thread.currentThread();
+        while (thread == self) {
+            int count;
+            synchronized (lock) {
+                count = simulation.isGameOver() ? 0 : planner.plan(simulation, skill, xs, ys);
+            }
+            if (count < 2) {
+                LockSupport.parkNanos(GameLoop.TICK_NANOS);
+                continue;
+            }
+            aim(count);
+            LockSupport.parkNanos(skill.getReactionTicks() * GameLoop.TICK_NANOS);
+            swipe(count);
+            swipes++;
+            LockSupport.parkNanos(skill.getPauseTicks() * GameLoop.TICK_NANOS);
+        }
+    }
+
+    // Aiming error: every point lands a little off the plan
+    private void aim(int count) {
+        double error = skill.getAimError();
+        if (error == 0) {
+            return;
+        }
+        for (int k = 0; k < count; k++) {
+            xs[k] += (int) Math.round(rand.nextGaussian() * error);
+            ys[k] += (int) Math.round(rand.nextGaussian() * error);
+        }
+    }
+
+    // Play the polyline back at the blade speed: one DRAG per event interval, then RELEASE at the end
+    private void swipe(int count) {
+        double step = skill.getSpeed() * eventNanos / GameLoop.TICK_NANOS; // blade travel per record
+        deadline = System.nanoTime();
+        offer(InputQueue.PRESS, xs[0], ys[0]);
+        int segment = 0;
+        double along = 0;   // distance travelled on the current segment
+        while (segment < count - 1 && thread != null) {
+            double dx = xs[segment + 1] - xs[segment];
+            double dy = ys[segment + 1] - ys[segment];
+            double length = Math.sqrt(dx * dx + dy * dy);
+            along += step;
+            if (along >= length) {
+                // Segment done: drag exactly to its end point (a target's center) and turn there
+                along = 0;
+                segment++;
+                waitForDeadline();
+                offer(InputQueue.DRAG, xs[segment], ys[segment]);
+                continue;
+            }
+            double f = along / length;
+            waitForDeadline();
+            offer(InputQueue.DRAG, (int) Math.round(xs[segment] + dx * f), (int) Math.round(ys[segment] + dy * f));
+        }
+        waitForDeadline();
+        offer(InputQueue.RELEASE, xs[count - 1], ys[count - 1]);
+    }
+
+    // Sleep until the next record is due; after a stall (GC, busy CPU) carry on without a burst
+    private void waitForDeadline() {
+        deadline += eventNanos;
+        long now = System.nanoTime();
+        if (deadline > now) {
+            LockSupport.parkNanos(deadline - now);
+        } else if (now - deadline > GameLoop.TICK_NANOS) {
+            deadline = now;
+        }
+    }
+
+    private void offer(byte type, int x, int y) {
+        if (queue.offer(type, x, y, System.nanoTime() / 1_000_000)) {
+            events++;
+        } else {
+            dropped++;
+        }
+    }
+
+    public Skill getSkill() {
+        return skill;
+    }
+
+    public long getSwipes() {
+        return swipes;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    // Records the input queue refused because the game loop was not draining it fast enough
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,141 @@
+import java.awt.Rectangle;
+
+// Screen area that needs repainting, kept as a few rectangles in panel coordinates.
+// A new box is merged into the rectangle it grows the least when the extra area is cheaper than
+// painting another rectangle (RECT_COST_PIXELS); once MAX_RECTS are in use it is always merged.
+// When the rectangles add up to more than FULL_REPAINT_FRACTION of the panel the region just
+// becomes "full": one full repaint is then cheaper than clipping every draw call several times.
+public class DamageRegion {
+    private static final int MAX_RECTS = 4;
+    private static final long RECT_COST_PIXELS = 64 * 64;    // overhead of painting one more rectangle, in pixels
+    private static final double FULL_REPAINT_FRACTION = 0.5;
+
+    private final int width, height;
+    private final int[] x0 = new int[MAX_RECTS];   // rectangle k covers [x0, x1) x [y0, y1)
+    private final int[] y0 = new int[MAX_RECTS];
+    private final int[] x1 = new int[MAX_RECTS];
+    private final int[] y1 = new int[MAX_RECTS];
+    private int count;
+    private boolean full;
+
+    public DamageRegion(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void clear() {
+        count = 0;
+        full = false;
+    }
+
+    public void setFull() {
+        full = true;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    // Add the box [ax0, ax1) x [ay0, ay1); parts outside the panel are dropped
+    public void add(int ax0, int ay0, int ax1, int ay1) {
+        if (full) {
+            return;
+        }
+        ax0 = Math.max(ax0, 0);
+        ay0 = Math.max(ay0, 0);
+        ax1 = Math.min(ax1, width);
+        ay1 = Math.min(ay1, height);
+        if (ax0 >= ax1 || ay0 >= ay1) {
+            return;
+        }
+        int best = -1;
+        long bestExtra = Long.MAX_VALUE;
+        for (int k = 0; k < count; k++) {
+            long extra = area(Math.min(ax0, x0[k]), Math.min(ay0, y0[k]), Math.max(ax1, x1[k]), Math.max(ay1, y1[k]))
+                    - area(x0[k], y0[k], x1[k], y1[k]) - area(ax0, ay0, ax1, ay1);
+            if (extra < bestExtra) {
+                best = k;
+                bestExtra = extra;
+            }
+        }
+        if (best >= 0 && (bestExtra <= RECT_COST_PIXELS || count == MAX_RECTS)) {
+            x0[best] = Math.min(ax0, x0[best]);
+            y0[best] = Math.min(ay0, y0[best]);
+            x1[best] = Math.max(ax1, x1[best]);
+            y1[best] = Math.max(ay1, y1[best]);
+        } else {
+            x0[count] = ax0;
+            y0[count] = ay0;
+            x1[count] = ax1;
+            y1[count] = ay1;
+            count++;
+        }
+        long total = 0;
+        for (int k = 0; k < count; k++) {
+            total += area(x0[k], y0[k], x1[k], y1[k]);
+        }
+        if (total > FULL_REPAINT_FRACTION * width * height) {
+            full = true;
+        }
+    }
+
+    public void addAll(DamageRegion other) {
+        if (other.full) {
+            full = true;
+            return;
+        }
+        for (int k = 0; k < other.count; k++) {
+            add(other.x0[k], other.y0[k], other.x1[k], other.y1[k]);
+        }
+    }
+
+    // True if every rectangle lies inside the box [cx0, cx1) x [cy0, cy1)
+    public boolean isInside(int cx0, int cy0, int cx1, int cy1) {
+        if (full) {
+            return cx0 <= 0 && cy0 <= 0 && cx1 >= width && cy1 >= height;
+        }
+        for (int k = 0; k < count; k++) {
+            if (x0[k] < cx0 || y0[k] < cy0 || x1[k] > cx1 || y1[k] > cy1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Smallest rectangle covering every rectangle (the whole panel when full) into r; empty if none
+    public void getBounds(Rectangle r) {
+        if (full) {
+            r.setBounds(0, 0, width, height);
+            return;
+        }
+        int bx0 = width, by0 = height, bx1 = 0, by1 = 0;
+        for (int k = 0; k < count; k++) {
+            bx0 = Math.min(bx0, x0[k]);
+            by0 = Math.min(by0, y0[k]);
+            bx1 = Math.max(bx1, x1[k]);
+            by1 = Math.max(by1, y1[k]);
+        }
+        r.setBounds(bx0, by0, Math.max(0, bx1 - bx0), Math.max(0, by1 - by0));
+    }
+
+    private static long area(int ax0, int ay0, int ax1, int ay1) {
+        return (long) (ax1 - ax0) * (ay1 - ay0);
+    }
+
+    // Rectangles of a region that is not full
+    public int getCount() {
+        return count;
+    }
+    public int getX(int k) {
+        return x0[k];
+    }
+    public int getY(int k) {
+        return y0[k];
+    }
+    public int getWidth(int k) {
+        return x1[k] - x0[k];
+    }
+    public int getHeight(int k) {
+        return y1[k] - y0[k];
+    }
+}
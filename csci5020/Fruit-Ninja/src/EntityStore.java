@@ -0,0 +1,406 @@
+import java.awt.Graphics;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Struct-of-arrays storage for every live fruit, bomb and bonus on screen.
+// Entities are plain slots in parallel primitive arrays; slots are reused after removal
+// (swap-remove), so spawning and culling do not allocate once the arrays have grown.
+public class EntityStore {
+    // Entity kinds stored in kind[]
+    public static final byte KIND_FRUIT = 0;
+    public static final byte KIND_BOMB = 1;
+    public static final byte KIND_BONUS = 2;
+
+    private static final int INITIAL_CAPACITY = 64;
+    // Entity count from which the physics pass is split across the common ForkJoin pool; below it
+    // the fork/join overhead costs more than the update itself (see ParallelPhysicsBenchmark)
+    private static final int PARALLEL_MIN_ENTITIES = 8192;
+    private static final int CHUNK_SIZE = 2048;  // entities per parallel task
+
+    private static final Fruit.FruitType[] FRUIT_TYPES = Fruit.FruitType.values();
+    private static final BonusItem.BonusType[] BONUS_TYPES = BonusItem.BonusType.values();
+
+    private double[] x, y;     // current positions
+    private double[] px, py;   // positions before the last tick, for interpolated rendering
+    private double[] vx, vy;   // velocity components
+    private int[] radius;      // radius for collision and drawing
+    private byte[] kind;       // KIND_FRUIT, KIND_BOMB or KIND_BONUS
+    private byte[] type;       // FruitType / BonusType ordinal (unused for bombs)
+    private boolean[] sliced;  // sliced this tick; removed on the next update pass
+    private int[] id;          // stable identity, unique for the life of the store (slots move on removal)
+    private int size;          // number of live slots [0, size)
+    private int nextId;
+    private int[] chunkMissed = new int[0]; // missed fruits per chunk of the last parallel pass
+    private final double[] uniformScales = new double[TimeScale.CATEGORIES]; // for updateAndCull(double, ...)
+
+    public EntityStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public EntityStore(int capacity) {
+        x = new double[capacity];
+        y = new double[capacity];
+        px = new double[capacity];
+        py = new double[capacity];
+        vx = new double[capacity];
+        vy = new double[capacity];
+        radius = new int[capacity];
+        kind = new byte[capacity];
+        type = new byte[capacity];
+        sliced = new boolean[capacity];
+        id = new int[capacity];
+    }
+
+    // Add a new entity and return its slot index (arrays only grow when the pool is full)
+    public int spawn(byte kind, int type, double x, double y, double vx, double vy, int radius) {
+        if (size == this.x.length) {
+            grow();
+        }
+        int i = size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.px[i] = x;
+        this.py[i] = y;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.radius[i] = radius;
+        this.kind[i] = kind;
+        this.type[i] = (byte) type;
+        this.sliced[i] = false;
+        this.id[i] = nextId++;
+        return i;
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        px = Arrays.copyOf(px, capacity);
+        py = Arrays.copyOf(py, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        kind = Arrays.copyOf(kind, capacity);
+        type = Arrays.copyOf(type, capacity);
+        sliced = Arrays.copyOf(sliced, capacity);
+        id = Arrays.copyOf(id, capacity);
+    }
+
+    // Remove slot i by moving the last live entity into it (O(1), order is not preserved)
+    public void remove(int i) {
+        int last = --size;
+        if (i != last) {
+            x[i] = x[last];
+            y[i] = y[last];
+            px[i] = px[last];
+            py[i] = py[last];
+            vx[i] = vx[last];
+            vy[i] = vy[last];
+            radius[i] = radius[last];
+            kind[i] = kind[last];
+            type[i] = type[last];
+            sliced[i] = sliced[last];
+            id[i] = id[last];
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Drop sliced entities, move the rest, and cull whatever left the screen; large stores are
+    // updated in parallel with exactly the same result as the serial pass. Each entity moves at the
+    // time scale of its kind, speedFactors[kind] (TimeScale.getScales()).
+    // Returns the number of unsliced fruits that fell off screen (each one costs the player a life).
+    public int updateAndCull(double[] speedFactors, int width, int height) {
+        if (size >= PARALLEL_MIN_ENTITIES && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return updateAndCullParallel(speedFactors, width, height);
+        }
+        return updateAndCullSerial(speedFactors, width, height);
+    }
+
+    // Everything at the same speed
+    public int updateAndCull(double speedFactor, int width, int height) {
+        for (int c = 0; c < uniformScales.length; c++) {
+            uniformScales[c] = speedFactor;
+        }
+        return updateAndCull(uniformScales, width, height);
+    }
+
+    // Single fused pass over the store
+    int updateAndCullSerial(double[] speedFactors, int width, int height) {
+        int missed = 0;
+        int i = 0;
+        while (i < size) {
+            if (sliced[i]) {
+                // Sliced on the previous input event - already scored, just free the slot
+                remove(i);
+                continue;
+            }
+            double speedFactor = speedFactors[kind[i]];
+            px[i] = x[i];
+            py[i] = y[i];
+            x[i] += vx[i] * speedFactor;
+            y[i] += vy[i] * speedFactor;
+            vy[i] += GameSimulation.GRAVITY * speedFactor;
+            int r = radius[i];
+            if ((y[i] - r > height) || (x[i] + r < 0) || (x[i] - r > width)) {
+                if (kind[i] == KIND_FRUIT) {
+                    missed++;
+                }
+                // The entity swapped into slot i has not been updated yet, so stay on i
+                remove(i);
+                continue;
+            }
+            i++;
+        }
+        return missed;
+    }
+
+    // Parallel pass: fixed chunks are moved and culled concurrently, with culled entities only marked
+    // (as sliced) and missed fruits counted per chunk. The removals then run serially with the same
+    // swap-remove sequence as the serial pass, so slot order, positions and the missed count match it exactly.
+    int updateAndCullParallel(double[] speedFactors, int width, int height) {
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunkMissed.length < chunks) {
+            chunkMissed = new int[chunks];
+        }
+        ForkJoinPool.commonPool().invoke(new UpdateChunks(0, chunks, speedFactors, width, height));
+        int missed = 0;
+        for (int c = 0; c < chunks; c++) {
+            missed += chunkMissed[c];
+        }
+        int i = 0;
+        while (i < size) {
+            if (sliced[i]) {
+                remove(i);
+                continue;
+            }
+            i++;
+        }
+        return missed;
+    }
+
+    // Move and mark the entities of chunk c; sliced ones are left for the removal pass
+    private void updateChunk(int c, double[] speedFactors, int width, int height) {
+        int missed = 0;
+        int end = Math.min(size, (c + 1) * CHUNK_SIZE);
+        for (int i = c * CHUNK_SIZE; i < end; i++) {
+            if (sliced[i]) {
+                continue;
+            }
+            double speedFactor = speedFactors[kind[i]];
+            px[i] = x[i];
+            py[i] = y[i];
+            x[i] += vx[i] * speedFactor;
+            y[i] += vy[i] * speedFactor;
+            vy[i] += GameSimulation.GRAVITY * speedFactor;
+            int r = radius[i];
+            if ((y[i] - r > height) || (x[i] + r < 0) || (x[i] - r > width)) {
+                if (kind[i] == KIND_FRUIT) {
+                    missed++;
+                }
+                sliced[i] = true; // off screen: removed with the sliced ones
+            }
+        }
+        chunkMissed[c] = missed;
+    }
+
+    // Fork/join split of the chunk range [from, to)
+    @SuppressWarnings("serial") // never serialized
+    private class UpdateChunks extends RecursiveAction {
+        private final int from, to;
+        private final double[] speedFactors;
+        private final int width, height;
+
+        UpdateChunks(int from, int to, double[] speedFactors, int width, int height) {
+            this.from = from;
+            this.to = to;
+            this.speedFactors = speedFactors;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                updateChunk(from, speedFactors, width, height);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new UpdateChunks(from, mid, speedFactors, width, height),
+                        new UpdateChunks(mid, to, speedFactors, width, height));
+            }
+        }
+    }
+
+    // Collision test of slot i against the swipe segment (x1,y1)->(x2,y2)
+    public boolean intersectsLine(int i, int x1, int y1, int x2, int y2) {
+        return GameObject.circleIntersectsLine(x[i], y[i], radius[i], x1, y1, x2, y2);
+    }
+
+    // Swept collision of slot i: tests the swipe segment (x1,y1)->(x2,y2) against the capsule the object
+    // covered during the last tick (from its previous to its current position, grown by its radius), so a
+    // fast object cannot pass through a swipe between ticks. Returns the fraction along the swipe segment
+    // where the blade is closest to the object's path (the hit time within the segment), or -1 on a miss.
+    public double sweptHitTime(int i, int x1, int y1, int x2, int y2) {
+        // Closest points between swipe S(s) = p1 + s*d1 and motion M(t) = prev + t*d2, s,t in [0,1]
+        double d1x = x2 - x1, d1y = y2 - y1;
+        double d2x = x[i] - px[i], d2y = y[i] - py[i];
+        double rx = x1 - px[i], ry = y1 - py[i];
+        double a = d1x * d1x + d1y * d1y;
+        double e = d2x * d2x + d2y * d2y;
+        double f = d2x * rx + d2y * ry;
+        double s, t;
+        if (a == 0 && e == 0) {
+            s = 0;
+            t = 0;
+        } else if (a == 0) {
+            s = 0;
+            t = clamp01(f / e);
+        } else {
+            double c = d1x * rx + d1y * ry;
+            if (e == 0) {
+                t = 0;
+                s = clamp01(-c / a);
+            } else {
+                double b = d1x * d2x + d1y * d2y;
+                double denom = a * e - b * b;
+                s = denom != 0 ? clamp01((b * f - c * e) / denom) : 0;
+                t = (b * s + f) / e;
+                if (t < 0) {
+                    t = 0;
+                    s = clamp01(-c / a);
+                } else if (t > 1) {
+                    t = 1;
+                    s = clamp01((b - c) / a);
+                }
+            }
+        }
+        double dx = rx + d1x * s - d2x * t;
+        double dy = ry + d1y * s - d2y * t;
+        double r = radius[i];
+        return dx * dx + dy * dy <= r * r ? s : -1;
+    }
+
+    private static double clamp01(double v) {
+        return v < 0 ? 0 : (v > 1 ? 1 : v);
+    }
+
+    // Draw every live (unsliced) entity with its GameObject renderer.
+    // alpha in [0,1] interpolates between the previous and current tick positions.
+    public void draw(Graphics g, double alpha) {
+        for (int i = 0; i < size; i++) {
+            if (sliced[i]) {
+                continue;
+            }
+            int drawX = (int) (px[i] + (x[i] - px[i]) * alpha);
+            int drawY = (int) (py[i] + (y[i] - py[i]) * alpha);
+            switch (kind[i]) {
+                case KIND_FRUIT:
+                    Fruit.draw(g, FRUIT_TYPES[type[i]], drawX, drawY, radius[i]);
+                    break;
+                case KIND_BOMB:
+                    Bomb.draw(g, drawX, drawY, radius[i]);
+                    break;
+                default:
+                    BonusItem.draw(g, BONUS_TYPES[type[i]], drawX, drawY, radius[i]);
+                    break;
+            }
+        }
+    }
+
+    // Same as draw(g, alpha) but blits pre-rendered sprites; objects of other radii fall back to vector drawing
+    public void draw(Graphics g, double alpha, SpriteCache sprites) {
+        if (!sprites.isValid()) {
+            draw(g, alpha);
+            return;
+        }
+        int spriteRadius = sprites.getRadius();
+        for (int i = 0; i < size; i++) {
+            if (sliced[i]) {
+                continue;
+            }
+            int drawX = (int) (px[i] + (x[i] - px[i]) * alpha);
+            int drawY = (int) (py[i] + (y[i] - py[i]) * alpha);
+            int r = radius[i];
+            if (r == spriteRadius) {
+                sprites.draw(g, kind[i], type[i], drawX, drawY);
+            } else if (kind[i] == KIND_FRUIT) {
+                Fruit.draw(g, FRUIT_TYPES[type[i]], drawX, drawY, r);
+            } else if (kind[i] == KIND_BOMB) {
+                Bomb.draw(g, drawX, drawY, r);
+            } else {
+                BonusItem.draw(g, BONUS_TYPES[type[i]], drawX, drawY, r);
+            }
+        }
+    }
+
+    // Add the screen boxes of all visible entities drawn at the interpolation factor alpha, up to
+    // their current position. Given the time scales by kind (non-null), each box also covers where
+    // the entity will be after the next tick, for frames that are painted later than they are
+    // requested (Swing repaint).
+    public void addDamage(DamageRegion region, double alpha, double[] speedFactors) {
+        for (int i = 0; i < size; i++) {
+            if (sliced[i]) {
+                continue;
+            }
+            int drawX = (int) (px[i] + (x[i] - px[i]) * alpha);
+            int drawY = (int) (py[i] + (y[i] - py[i]) * alpha);
+            double speedFactor = speedFactors != null ? speedFactors[kind[i]] : 0;
+            int nextX = (int) (x[i] + vx[i] * speedFactor);
+            int nextY = (int) (y[i] + vy[i] * speedFactor);
+            int pad = radius[i] + 2; // outline and antialiasing
+            region.add(Math.min(drawX, nextX) - pad, Math.min(drawY, nextY) - pad,
+                    Math.max(drawX, nextX) + pad, Math.max(drawY, nextY) + pad);
+        }
+    }
+
+    // Identity of the entity in slot i; spawn order, so newer entities have larger ids
+    public int getId(int i) {
+        return id[i];
+    }
+
+    public byte getKind(int i) {
+        return kind[i];
+    }
+    // FruitType / BonusType ordinal
+    public int getType(int i) {
+        return type[i];
+    }
+    public Fruit.FruitType getFruitType(int i) {
+        return FRUIT_TYPES[type[i]];
+    }
+    public BonusItem.BonusType getBonusType(int i) {
+        return BONUS_TYPES[type[i]];
+    }
+    public boolean isSliced(int i) {
+        return sliced[i];
+    }
+    public void setSliced(int i, boolean sliced) {
+        this.sliced[i] = sliced;
+    }
+    public double getX(int i) {
+        return x[i];
+    }
+    public double getY(int i) {
+        return y[i];
+    }
+    public double getVx(int i) {
+        return vx[i];
+    }
+    public double getVy(int i) {
+        return vy[i];
+    }
+    // Distance covered in the last tick along the larger axis
+    public double getStep(int i) {
+        return Math.max(Math.abs(x[i] - px[i]), Math.abs(y[i] - py[i]));
+    }
+    public int getRadius(int i) {
+        return radius[i];
+    }
+}
@@ -0,0 +1,350 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Frame loop instrumentation: per-tick update time, swipe collision time, paint time and GC pauses
+// go into lock-free LatencyRecorders, next to gauges for the live object count, spawn count and
+// spawn interval. Once a second a reporter thread drains the recorders and publishes the interval:
+// as text lines for the overlay (F3 in the game), as a JFR event, and as a CSV row when
+// -Dfruitninja.metricsCsv=<file> is set. Every tick is also a JFR event, so a recording shows
+// stutter next to the entity load and difficulty at that moment.
+public class FrameMetrics {
+    private static final long REPORT_MILLIS = 1000;
+    // GC action of a whole ZGC or Shenandoah cycle; it runs beside the game, and its pauses are
+    // reported separately (Shenandoah names them by phase, so pauses can't be matched by action)
+    private static final String CONCURRENT_CYCLE = "end of GC cycle";
+    private static final String CSV_HEADER = "time_ms,objects,spawn_interval,spawns_per_s,ticks,"
+            + "update_p50_us,update_p99_us,update_max_us,collision_p99_us,collision_max_us,"
+            + "frames,paint_p50_us,paint_p99_us,paint_max_us,gc_pauses,gc_pause_max_ms";
+
+    // Emitted for every simulation tick
+    @Name("fruitninja.Tick")
+    @Label("Game Tick")
+    @Category("Fruit Ninja")
+    @StackTrace(false)
+    static class TickEvent extends Event {
+        @Label("Update Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long updateTime;
+
+        @Label("Objects")
+        int objects;
+
+        @Label("Spawn Interval")
+        @Description("Ticks between spawns (lower is harder)")
+        int spawnInterval;
+    }
+
+    // Emitted once per report interval
+    @Name("fruitninja.MetricsInterval")
+    @Label("Frame Metrics Interval")
+    @Category("Fruit Ninja")
+    @StackTrace(false)
+    static class IntervalEvent extends Event {
+        @Label("Objects")
+        int objects;
+
+        @Label("Spawn Interval")
+        int spawnInterval;
+
+        @Label("Spawns Per Second")
+        double spawnsPerSecond;
+
+        @Label("Update P99")
+        @Timespan(Timespan.NANOSECONDS)
+        long updateP99;
+
+        @Label("Collision P99")
+        @Timespan(Timespan.NANOSECONDS)
+        long collisionP99;
+
+        @Label("Paint P99")
+        @Timespan(Timespan.NANOSECONDS)
+        long paintP99;
+
+        @Label("Paint Max")
+        @Timespan(Timespan.NANOSECONDS)
+        long paintMax;
+
+        @Label("GC Pauses")
+        long gcPauses;
+
+        @Label("GC Pause Max")
+        @Timespan(Timespan.NANOSECONDS)
+        long gcPauseMax;
+
+        @Label("Heap Used")
+        @DataAmount
+        long heapUsed;
+    }
+
+    // Receives every report interval on the reporter thread (SoakRunner); the histograms are reused
+    // for the next interval, so a listener copies what it needs before returning
+    public interface IntervalListener {
+        void interval(LatencyHistogram update, LatencyHistogram paint, LatencyHistogram gcPauses);
+    }
+
+    private final LatencyRecorder update = new LatencyRecorder();     // GameSimulation.step per tick
+    private final LatencyRecorder collision = new LatencyRecorder();  // swipe collision per drag event
+    private final LatencyRecorder paint = new LatencyRecorder();      // one frame of game drawing
+    private final LatencyRecorder gcPause = new LatencyRecorder();    // stop-the-world collections
+
+    // Gauges written by the game loop thread
+    private volatile int objects;
+    private volatile int spawnInterval;
+    private volatile long spawnCount;    // spawns since the current game started
+
+    private volatile String[] overlayLines = { "Collecting metrics..." };
+    private volatile IntervalListener listener;
+    private NotificationListener gcListener;
+    private volatile Thread reporter;  // the running reporter thread; an old one exits once replaced
+
+    // Start the GC listener and the reporter thread; recording works without it, nothing is published
+    public synchronized void start() {
+        if (reporter != null) {
+            return;
+        }
+        gcListener = listenForGcPauses();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                report();
+            }
+        }, "frame-metrics");
+        thread.setDaemon(true);
+        reporter = thread;
+        thread.start();
+    }
+
+    // Remove the GC listener and end the reporter thread (it closes the CSV); start() may be called again
+    public synchronized void stop() {
+        Thread thread = reporter;
+        if (thread == null) {
+            return;
+        }
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) bean).removeNotificationListener(gcListener);
+                } catch (ListenerNotFoundException e) {
+                    // not registered on this collector
+                }
+            }
+        }
+        gcListener = null;
+        // Not interrupt(): that would close the CSV file's channel if the thread is writing to it
+        reporter = null;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Called by the game loop after each tick with the tick's update time
+    public void recordTick(long updateNanos, GameSimulation simulation) {
+        update.record(updateNanos);
+        int count = simulation.getObjects().size();
+        int interval = simulation.getSpawnInterval();
+        objects = count;
+        spawnInterval = interval;
+        spawnCount = simulation.getSpawnCount();
+        // Making the first event object loads JFR (~300 ms), so skip it unless a recording was ever started
+        if (FlightRecorder.isInitialized()) {
+            TickEvent event = new TickEvent();
+            if (event.shouldCommit()) {
+                event.updateTime = updateNanos;
+                event.objects = count;
+                event.spawnInterval = interval;
+                event.commit();
+            }
+        }
+    }
+
+    public void recordCollision(long nanos) {
+        collision.record(nanos);
+    }
+
+    public void recordPaint(long nanos) {
+        paint.record(nanos);
+    }
+
+    public void setIntervalListener(IntervalListener listener) {
+        this.listener = listener;
+    }
+
+    // Text of the last interval for the overlay, replaced (never modified) once per interval
+    public String[] getOverlayLines() {
+        return overlayLines;
+    }
+
+    // Record every stop-the-world collection; returns the listener for stop() to remove
+    private NotificationListener listenForGcPauses() {
+        NotificationListener listener = new NotificationListener() {
+            public void handleNotification(Notification notification, Object handback) {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                // Concurrent cycles run beside the game; only stop-the-world collections stall a frame
+                if (!CONCURRENT_CYCLE.equals(info.getGcAction())) {
+                    gcPause.record(info.getGcInfo().getDuration() * 1_000_000L);
+                }
+            }
+        };
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                ((NotificationEmitter) bean).addNotificationListener(listener, null, null);
+            }
+        }
+        return listener;
+    }
+
+    // Sleep until the next interval is due; false once stop() has retired this reporter thread
+    private boolean awaitInterval() {
+        long wakeAt = System.nanoTime() + REPORT_MILLIS * 1_000_000L;
+        while (reporter == Thread.currentThread()) {
+            long remaining = wakeAt - System.nanoTime();
+            if (remaining <= 0) {
+                return true;
+            }
+            LockSupport.parkNanos(this, remaining);
+        }
+        return false;
+    }
+
+    // Reporter thread: publish one interval per REPORT_MILLIS until stopped
+    private void report() {
+        LatencyHistogram updateInterval = new LatencyHistogram();
+        LatencyHistogram collisionInterval = new LatencyHistogram();
+        LatencyHistogram paintInterval = new LatencyHistogram();
+        LatencyHistogram gcInterval = new LatencyHistogram();
+        BufferedWriter csv = openCsv();
+        long startMillis = System.currentTimeMillis();
+        long lastMillis = startMillis;
+        long lastSpawnCount = spawnCount;
+        while (awaitInterval()) {
+            long now = System.currentTimeMillis();
+            double seconds = Math.max(1, now - lastMillis) / 1000.0;
+            lastMillis = now;
+            update.drainInto(updateInterval);
+            collision.drainInto(collisionInterval);
+            paint.drainInto(paintInterval);
+            gcPause.drainInto(gcInterval);
+            long spawns = spawnCount;
+            // A restart resets the simulation's spawn count
+            double spawnsPerSecond = (spawns >= lastSpawnCount ? spawns - lastSpawnCount : spawns) / seconds;
+            lastSpawnCount = spawns;
+            int currentObjects = objects;
+            int currentSpawnInterval = spawnInterval;
+            IntervalListener currentListener = listener;
+            if (currentListener != null) {
+                currentListener.interval(updateInterval, paintInterval, gcInterval);
+            }
+
+            overlayLines = new String[] {
+                String.format(Locale.ROOT, "ticks %4.0f/s  update p50 %s p99 %s max %s",
+                        updateInterval.getTotalCount() / seconds, micros(updateInterval.getValueAtPercentile(0.50)),
+                        micros(updateInterval.getValueAtPercentile(0.99)), micros(updateInterval.getMax())),
+                String.format(Locale.ROOT, "frames %3.0f/s  paint p50 %s p99 %s max %s",
+                        paintInterval.getTotalCount() / seconds, micros(paintInterval.getValueAtPercentile(0.50)),
+                        micros(paintInterval.getValueAtPercentile(0.99)), micros(paintInterval.getMax())),
+                String.format(Locale.ROOT, "collision %d tests  p99 %s max %s",
+                        collisionInterval.getTotalCount(), micros(collisionInterval.getValueAtPercentile(0.99)),
+                        micros(collisionInterval.getMax())),
+                String.format(Locale.ROOT, "objects %d  spawn every %d ticks  %.1f spawns/s",
+                        currentObjects, currentSpawnInterval, spawnsPerSecond),
+                String.format(Locale.ROOT, "gc pauses %d  max %s",
+                        gcInterval.getTotalCount(), micros(gcInterval.getMax()))
+            };
+
+            // As in recordTick: no event objects until JFR is in use
+            if (FlightRecorder.isInitialized()) {
+                IntervalEvent event = new IntervalEvent();
+                if (event.shouldCommit()) {
+                    event.objects = currentObjects;
+                    event.spawnInterval = currentSpawnInterval;
+                    event.spawnsPerSecond = spawnsPerSecond;
+                    event.updateP99 = updateInterval.getValueAtPercentile(0.99);
+                    event.collisionP99 = collisionInterval.getValueAtPercentile(0.99);
+                    event.paintP99 = paintInterval.getValueAtPercentile(0.99);
+                    event.paintMax = paintInterval.getMax();
+                    event.gcPauses = gcInterval.getTotalCount();
+                    event.gcPauseMax = gcInterval.getMax();
+                    event.heapUsed = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+                    event.commit();
+                }
+            }
+
+            if (csv != null) {
+                try {
+                    csv.write(String.format(Locale.ROOT, "%d,%d,%d,%.2f,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%.1f",
+                            now - startMillis, currentObjects, currentSpawnInterval, spawnsPerSecond,
+                            updateInterval.getTotalCount(), updateInterval.getValueAtPercentile(0.50) / 1000,
+                            updateInterval.getValueAtPercentile(0.99) / 1000, updateInterval.getMax() / 1000,
+                            collisionInterval.getValueAtPercentile(0.99) / 1000, collisionInterval.getMax() / 1000,
+                            paintInterval.getTotalCount(), paintInterval.getValueAtPercentile(0.50) / 1000,
+                            paintInterval.getValueAtPercentile(0.99) / 1000, paintInterval.getMax() / 1000,
+                            gcInterval.getTotalCount(), gcInterval.getMax() / 1e6));
+                    csv.newLine();
+                    csv.flush();
+                } catch (IOException e) {
+                    System.err.println("Metrics CSV disabled: " + e);
+                    csv = null;
+                }
+            }
+        }
+        if (csv != null) {
+            try {
+                csv.close();
+            } catch (IOException e) {
+                System.err.println("Metrics CSV not closed: " + e);
+            }
+        }
+    }
+
+    // CSV output named by -Dfruitninja.metricsCsv, or null when not requested or not writable
+    private static BufferedWriter openCsv() {
+        String path = System.getProperty("fruitninja.metricsCsv");
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        try {
+            BufferedWriter writer = Files.newBufferedWriter(Paths.get(path));
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            return writer;
+        } catch (IOException e) {
+            System.err.println("Metrics CSV disabled: " + e);
+            return null;
+        }
+    }
+
+    private static String micros(long nanos) {
+        if (nanos >= 10_000_000L) {
+            return (nanos / 1_000_000L) + "ms";
+        }
+        return (nanos / 1000) + "us";
+    }
+}
@@ -20,11 +20,10 @@ public class Fruit extends GameObject {
 
     private FruitType type;
     
-    public Fruit(int x, int y, double vx, double vy) {
+    // The caller picks the (random) type from its own seeded source, so games stay reproducible
+    public Fruit(int x, int y, double vx, double vy, FruitType type) {
         super(x, y, vx, vy, 20);
-        // Randomly assign a type of fruit for point value and color
-        FruitType[] types = FruitType.values();
-        this.type = types[(int)(Math.random() * types.length)];
+        this.type = type;
     }
 
     public int getPointValue() {
@@ -32,13 +31,29 @@ public class Fruit extends GameObject {
         return type.getPoints();
     }
 
+    public FruitType getType() {
+        return type;
+    }
+
     @Override
     public void draw(Graphics g) {
+        draw(g, type, (int)x, (int)y, radius);
+    }
+
+    // Renderer shared with EntityStore, which keeps fruits as plain array slots
+    public static void draw(Graphics g, FruitType type, int x, int y, int radius) {
+        draw(g, type, x, y, radius, true);
+    }
+
+    // The outline can be left out when the quality is lowered (QualityGovernor)
+    public static void draw(Graphics g, FruitType type, int x, int y, int radius, boolean outline) {
         // Draw fruit as a colored circle
         g.setColor(type.getColor());
-        g.fillOval((int)(x - radius), (int)(y - radius), radius * 2, radius * 2);
+        g.fillOval(x - radius, y - radius, radius * 2, radius * 2);
         // Optionally, draw an outline
-        g.setColor(Color.BLACK);
-        g.drawOval((int)(x - radius), (int)(y - radius), radius * 2, radius * 2);
+        if (outline) {
+            g.setColor(Color.BLACK);
+            g.drawOval(x - radius, y - radius, radius * 2, radius * 2);
+        }
     }
 }
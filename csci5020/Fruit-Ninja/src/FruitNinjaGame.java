@@ -1,21 +1,182 @@
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
 import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.DisplayMode;
+import java.awt.GraphicsDevice;
+import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 
 public class FruitNinjaGame {
-    // Static high score tracker (persists between games)
-    public static int highScore = 0;
-
     public static void main(String[] args) {
-        // Create game window (JFrame)
+        // Without a display there is no window; run the startup pipeline offscreen (Startup)
+        if (GraphicsEnvironment.isHeadless()) {
+            System.err.println("No display; running the startup pipeline offscreen");
+            Startup.runOffscreen();
+            return;
+        }
+        // Show the window with a splash at once, then put the game in as soon as it is built; the
+        // warm-up runs on its own thread (Startup)
+        final JFrame frame = createWindow();
+        String spectate = System.getProperty("fruitninja.spectate");
+        final boolean spectating = spectate != null && !spectate.isEmpty();
+        final SpectatorClient client = spectating ? connectSpectator(spectate) : null;
+        if (!spectating) {
+            Startup.windowShown();
+        }
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                JPanel panel;
+                if (spectating) {
+                    // -Dfruitninja.spectate=<host>:<port> watches a game served with -Dfruitninja.serve
+                    frame.setTitle("Fruit Ninja Game - watching " + System.getProperty("fruitninja.spectate"));
+                    panel = new SpectatorPanel(client);
+                } else {
+                    // The game panel (where gameplay happens); it scales the game to any window size
+                    panel = new GamePanel();
+                }
+                frame.getContentPane().removeAll();
+                frame.add(panel);
+                frame.validate();
+                panel.requestFocusInWindow();
+            }
+        });
+    }
+
+    // Create and show the game window (JFrame) with a splash panel, on the EDT; returns once it is up
+    private static JFrame createWindow() {
+        final JFrame[] created = new JFrame[1];
+        try {
+            SwingUtilities.invokeAndWait(new Runnable() {
+                public void run() {
+                    created[0] = buildWindow();
+                }
+            });
+        } catch (InterruptedException | InvocationTargetException e) {
+            throw new IllegalStateException("Cannot create the game window", e);
+        }
+        return created[0];
+    }
+
+    private static JFrame buildWindow() {
         JFrame frame = new JFrame("Fruit Ninja Game");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-        // Create and add the game panel (where gameplay happens)
-        GamePanel gamePanel = new GamePanel();
-        frame.add(gamePanel);
-        frame.pack();             // size frame to fit panel
-        frame.setLocationRelativeTo(null); // center on screen
-        frame.setVisible(true);
+        // Exclusive fullscreen with -Dfruitninja.fullscreen=true, optionally switching the display to
+        // -Dfruitninja.displayMode=<width>x<height>[@<refresh rate>]. Done before the game panel is
+        // made so the game loop runs at the refresh rate of the new mode.
+        GraphicsDevice device = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+        boolean fullScreen = Boolean.getBoolean("fruitninja.fullscreen") && device.isFullScreenSupported();
+        if (fullScreen) {
+            frame.setUndecorated(true);
+            device.setFullScreenWindow(frame);
+            String spec = System.getProperty("fruitninja.displayMode");
+            if (spec != null && !spec.isEmpty()) {
+                changeDisplayMode(device, spec);
+            }
+            // No title bar to close the window, so Escape quits
+            frame.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                    .put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "quit");
+            frame.getRootPane().getActionMap().put("quit", new AbstractAction() {
+                public void actionPerformed(ActionEvent e) {
+                    System.exit(0);
+                }
+            });
+        }
+
+        // Splash until the game panel replaces it: just the background, so it paints at once
+        JPanel splash = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                Startup.windowPainted();
+            }
+        };
+        splash.setPreferredSize(new Dimension(GamePanel.WIDTH, GamePanel.HEIGHT));
+        splash.setBackground(Color.DARK_GRAY);
+        frame.add(splash);
+        if (fullScreen) {
+            frame.validate();
+        } else {
+            frame.pack();             // size frame to fit panel
+            frame.setLocationRelativeTo(null); // center on screen
+            frame.setVisible(true);
+        }
+        return frame;
+    }
+
+    // Connect to the snapshot server named by spec ("host:port", or just "host" for the default port)
+    private static SpectatorClient connectSpectator(String spec) {
+        int colon = spec.lastIndexOf(':');
+        String host = colon < 0 ? spec : spec.substring(0, colon);
+        try {
+            int port = colon < 0 ? SnapshotServer.DEFAULT_PORT : Integer.parseInt(spec.substring(colon + 1).trim());
+            return SpectatorClient.connect(host, port);
+        } catch (NumberFormatException | IOException e) {
+            System.err.println("Cannot watch " + spec + ": " + e);
+            System.exit(1);
+            return null;
+        }
+    }
+
+    // Switch a fullscreen device to the mode matching spec; the current mode is kept on any problem
+    private static void changeDisplayMode(GraphicsDevice device, String spec) {
+        if (!device.isDisplayChangeSupported()) {
+            System.err.println("Display mode change not supported; keeping the current mode");
+            return;
+        }
+        DisplayMode mode;
+        try {
+            mode = chooseDisplayMode(device.getDisplayModes(), spec);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Bad fruitninja.displayMode: " + e.getMessage());
+            return;
+        }
+        if (mode == null) {
+            System.err.println("No display mode " + spec + "; keeping the current mode");
+            return;
+        }
+        device.setDisplayMode(mode);
+    }
 
-        // The GamePanel will handle game loop and interactions
+    // Best mode of the size in spec ("1920x1080" or "1920x1080@60"): the requested refresh rate, or
+    // the highest one when none is given, then the deepest color. Null if no mode has that size.
+    static DisplayMode chooseDisplayMode(DisplayMode[] modes, String spec) {
+        int at = spec.indexOf('@');
+        String size = at < 0 ? spec : spec.substring(0, at);
+        int x = size.indexOf('x');
+        if (x < 0) {
+            throw new IllegalArgumentException("expected <width>x<height>[@<refresh rate>], got " + spec);
+        }
+        int width, height, refreshRate;
+        try {
+            width = Integer.parseInt(size.substring(0, x).trim());
+            height = Integer.parseInt(size.substring(x + 1).trim());
+            refreshRate = at < 0 ? DisplayMode.REFRESH_RATE_UNKNOWN : Integer.parseInt(spec.substring(at + 1).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("expected <width>x<height>[@<refresh rate>], got " + spec);
+        }
+        DisplayMode best = null;
+        for (DisplayMode mode : modes) {
+            if (mode.getWidth() != width || mode.getHeight() != height) {
+                continue;
+            }
+            if (refreshRate != DisplayMode.REFRESH_RATE_UNKNOWN && mode.getRefreshRate() != refreshRate) {
+                continue;
+            }
+            if (best == null || mode.getRefreshRate() > best.getRefreshRate()
+                    || (mode.getRefreshRate() == best.getRefreshRate() && mode.getBitDepth() > best.getBitDepth())) {
+                best = mode;
+            }
+        }
+        return best;
     }
 }
@@ -0,0 +1,70 @@
+import java.util.concurrent.locks.LockSupport;
+
+// Dedicated game-loop thread: steps the simulation at a fixed rate with an accumulator and
+// renders at display rate, passing how far the clock is between the last two ticks so positions
+// can be interpolated. A slow frame (GC pause, slow paint) is made up with extra ticks, so it only
+// drops frames and never slows the game down.
+public class GameLoop implements Runnable {
+    // Callbacks driven by the loop; both run on the loop thread
+    public interface Callbacks {
+        // Advance the simulation by exactly one fixed tick
+        void tick();
+        // Present a frame; alpha in [0,1) is the fraction of a tick elapsed since the last tick
+        void render(double alpha);
+    }
+
+    public static final int TICKS_PER_SECOND = 60;
+    public static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    // Longest stall we catch up on; anything longer is dropped instead of replayed as a burst of ticks
+    private static final long MAX_CATCH_UP_NANOS = 250_000_000L;
+
+    private final Callbacks callbacks;
+    private final long frameNanos;      // render period at display rate
+    private volatile Thread thread;     // current loop thread, null when stopped
+
+    public GameLoop(Callbacks callbacks, int framesPerSecond) {
+        this.callbacks = callbacks;
+        this.frameNanos = 1_000_000_000L / framesPerSecond;
+    }
+
+    public void start() {
+        Thread t = new Thread(this, "game-loop");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    // Safe to call from the loop thread itself (e.g. on game over); the loop exits after the current frame
+    public void stop() {
+        thread = null;
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    @Override
+    public void run() {
+        Thread self = Thread.currentThread();
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        long nextFrame = previous;
+        while (thread == self) {
+            long now = System.nanoTime();
+            accumulator += Math.min(now - previous, MAX_CATCH_UP_NANOS);
+            previous = now;
+            // Run as many fixed ticks as the elapsed time requires
+            while (accumulator >= TICK_NANOS && thread == self) {
+                callbacks.tick();
+                accumulator -= TICK_NANOS;
+            }
+            callbacks.render((double) accumulator / TICK_NANOS);
+            // Sleep until the next display frame; if we are already late, start it right away
+            nextFrame = Math.max(nextFrame + frameNanos, System.nanoTime());
+            long sleep = nextFrame - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+            }
+        }
+    }
+}
@@ -40,9 +40,14 @@ public abstract class GameObject {
 
     // Check if a line segment (p1->p2) intersects this object's circle (collision detection for slicing)
     public boolean intersectsLine(int x1, int y1, int x2, int y2) {
-        // Compute distance from this object's center to the line segment
-        double cx = this.x;
-        double cy = this.y;
+        return circleIntersectsLine(x, y, radius, x1, y1, x2, y2);
+    }
+
+    // Circle vs line segment test shared with EntityStore (circle at (cx,cy) with radius r)
+    public static boolean circleIntersectsLine(double cx, double cy, int r, int x1, int y1, int x2, int y2) {
+        // Compute distance from the circle center to the line segment
+        double px = cx;
+        double py = cy;
         // Vector from p1 to p2
         double vx_line = x2 - x1;
         double vy_line = y2 - y1;
@@ -57,20 +62,20 @@ public abstract class GameObject {
         }
         if (t < 0) {
             // Closest to p1
-            cx = x1;
-            cy = y1;
+            px = x1;
+            py = y1;
         } else if (t > 1) {
             // Closest to p2
-            cx = x2;
-            cy = y2;
+            px = x2;
+            py = y2;
         } else {
             // Projection falls on the segment
-            cx = x1 + t * vx_line;
-            cy = y1 + t * vy_line;
+            px = x1 + t * vx_line;
+            py = y1 + t * vy_line;
         }
-        // Distance from this closest point to object center
-        double dist = Math.hypot(this.x - cx, this.y - cy);
-        return dist <= this.radius;
+        // Distance from this closest point to the circle center
+        double dist = Math.hypot(cx - px, cy - py);
+        return dist <= r;
     }
 
     // Draw the object (to be implemented by subclasses for specific appearance)
@@ -1,88 +1,153 @@
 import javax.swing.JPanel;
-import javax.swing.Timer;
 import javax.swing.JButton;
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import java.awt.Color;
 import java.awt.Dimension;
-import java.awt.Point;
+import java.awt.DisplayMode;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Font;
-import java.awt.FontMetrics;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Random;
-
-public class GamePanel extends JPanel implements ActionListener, MouseListener, MouseMotionListener {
-    // Constants for panel size and game physics
-    public static final int WIDTH = 800;
-    public static final int HEIGHT = 600;
-    public static final double GRAVITY = 0.5; // gravity acceleration (pixels per frame^2)
-    private static final int INITIAL_SPAWN_INTERVAL = 100; // frames between spawns at start (approx 2 seconds at 20ms frame)
-    
-    private Timer timer;                // Swing timer for game loop (UIR2)
-    private List<GameObject> objects;   // Active game objects (fruits, bombs, bonuses) on screen
-    private Random rand;                // Random generator for spawning objects
-    
-    private boolean gameOver;           // Flag indicating if game is over (FR8)
-    private int score;
-    private int lives;
-    
-    // Swipe detection and combo tracking
-    private boolean swipeActive;            // Is the player currently swiping (mouse pressed and held)
-    private List<Point> swipePoints;        // Points of the current swipe trail (UIR1)
-    private int currentSwipeFruitCount;     // Number of fruits sliced in current continuous swipe (for combos) (FR4)
-    
-    // Combo message display
-    private String comboMessage;            // Message to display for combos or bonuses (UIR5)
-    private int comboMessageTimer;          // Frames remaining to display the combo message
-    
-    // Bonus effects
-    private boolean slowMotionActive;       // If true, slow-motion effect is active (from bonus or combo)
-    private int slowMotionTimer;            // Frames remaining for slow motion effect
-    
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+
+// Swing view of a GameSimulation: drives it from the game loop, forwards mouse swipes to it and
+// draws its state. All game rules live in GameSimulation. The panel can have any size: the world
+// is scaled to fit it (see Viewport), and mouse positions are turned into world coordinates.
+@SuppressWarnings("serial") // never serialized
+public class GamePanel extends JPanel implements GameLoop.Callbacks, MouseListener, MouseMotionListener {
+    // World size (the panel's preferred size) and game physics
+    public static final int WIDTH = GameSimulation.WIDTH;
+    public static final int HEIGHT = GameSimulation.HEIGHT;
+    public static final double GRAVITY = GameSimulation.GRAVITY; // gravity acceleration (pixels per tick^2)
+    private static final int DEFAULT_FRAMES_PER_SECOND = 60; // render rate when the display refresh rate is unknown
+    private static final int BOT_RESTART_MILLIS = 2000; // game over screen time before a bot starts the next game
+
+    private GameLoop loop;              // Fixed-timestep game loop thread (UIR2)
+    private final Object stateLock = new Object(); // Guards game state shared by the loop thread and the EDT
+    private volatile double renderAlpha; // Interpolation factor between the last two ticks for the next paint
+    private ActiveRenderer activeRenderer; // Non-null when frames are presented directly from the loop (-Dfruitninja.activeRendering=true)
+    private GameSimulation simulation;  // Game state and rules (FR1-FR8)
+    private SpriteCache sprites;        // Pre-rendered object images, rebuilt when the display configuration changes
+    private Hud hud;                    // Score, lives, combo message and game over overlay with cached fonts and text
+    private SwipeTrail swipeTrail;      // Recent points of the current swipe, for drawing the trail (UIR1)
+    private ParticleSystem particles;   // Juice and debris of sliced objects, updated with each tick
+    private FrameMetrics metrics;       // Tick, collision and paint timings, object counts and GC pauses
+    private volatile boolean showMetrics; // Performance overlay visible (F3, or -Dfruitninja.metrics.overlay=true)
+    private QualityGovernor governor;   // Lowers drawing quality when frames go over budget (-Dfruitninja.quality=<level> pins it)
+    private int qualityLevel = -1;      // Level the trail, sprites and particles are set up for; guarded by stateLock
+    private long frameTickNanos;        // Tick time since the last frame (game loop thread only)
+    private volatile long lastPaintNanos; // Paint time of the last frame, which runs on the EDT with Swing painting
+    private long framePaintNanos = -1;  // paintGame time of the frame being presented, -1 if none yet; guarded by stateLock
+    // Dirty-region rendering: damage is what the next frame must repaint, painted covers everything
+    // drawn since the last full repaint that may have to be erased. Both are guarded by stateLock.
+    private final DamageRegion damage = new DamageRegion(WIDTH, HEIGHT);
+    private final DamageRegion painted = new DamageRegion(WIDTH, HEIGHT);
+    private final Rectangle paintClip = new Rectangle();
+    // World placement on the panel; replaced when the panel is resized or moves to another display
+    private volatile Viewport viewport = Viewport.create(WIDTH, HEIGHT, WIDTH, HEIGHT, null);
+    private DamageRegion screenDamage = damage; // damage in panel coordinates; the same region when the viewport is direct
+    private BufferedImage backBuffer;   // world at the viewport's buffer scale, when it is not direct
+    private Graphics2D backGraphics;    // draws into backBuffer in world coordinates
+    private boolean repaintAll = true;  // next frame repaints the whole panel (first frame, restart, overlay toggle)
+    private boolean firstFrame;         // the next game frame is the first one the player sees (Startup); guarded by stateLock
+    private ReplayRecorder recorder;    // Swipe events and seed for replay (-Dfruitninja.record=<file>), or null
+    private ScoreStore scores;          // High scores and game statistics, saved across runs (-Dfruitninja.scores=<file>)
+    private SnapshotServer server;      // Streams every tick to spectators (-Dfruitninja.serve=[<address>:]<port>), or null
+    private BotPlayer bot;              // Plays through botQueue (-Dfruitninja.bot=<skill>), or null
+    // Mouse events and restarts from the EDT, applied by the game loop at the start of each tick
+    private final InputQueue inputQueue = new InputQueue(1024);
+    // The same records from the bot thread (a queue has a single producer)
+    private final InputQueue botQueue = new InputQueue(1024);
+    private final InputQueue.Handler inputHandler = new InputQueue.Handler() {
+        public void handle(byte type, int x, int y, long timeMillis) {
+            applyInput(type, x, y, timeMillis);
+        }
+    };
+    private final GameSimulation.Input queuedInput = new GameSimulation.Input() {
+        public void beforeTick(GameSimulation simulation) {
+            inputQueue.drain(inputHandler);
+            botQueue.drain(inputHandler);
+        }
+    };
+
+    private volatile boolean gameOver;  // Game over screen is showing (FR8)
+    private volatile int gamesPlayed;   // Games finished, for soak runs
+
     // Buttons for game over options (UIR6)
     private JButton restartButton;
     private JButton exitButton;
-    
-    // Difficulty control
-    private int spawnInterval;              // Current frames between spawns (decreases over time for difficulty, FR7)
-    private int spawnCounter;               // Counter for frames since last spawn
-    private int nextDifficultyScoreThreshold; // Score at which to next increase difficulty
-    
+
     public GamePanel() {
+        this(System.nanoTime());
+    }
+
+    public GamePanel(long seed) {
+        this(seed, true);
+    }
+
+    // startLoop = false leaves the panel idle (no game loop thread), for offscreen rendering benchmarks
+    GamePanel(long seed, boolean startLoop) {
         setPreferredSize(new Dimension(WIDTH, HEIGHT));
         setBackground(Color.DARK_GRAY);  // Background color for game canvas
         setLayout(null); // Use manual layout for overlay components (like buttons)
-        
+
         // Initialize game state
-        objects = new ArrayList<>();
-        rand = new Random();
+        simulation = new GameSimulation(seed);
+        sprites = new SpriteCache(GameSimulation.OBJECT_RADIUS);
+        hud = new Hud(this);
+        swipeTrail = new SwipeTrail();
+        particles = new ParticleSystem(ParticleSystem.DEFAULT_CAPACITY, WIDTH, HEIGHT, seed);
+        simulation.setEffects(new GameSimulation.Effects() {
+            public void sliced(byte kind, int type, double x, double y, double vx, double vy, int dx, int dy) {
+                particles.emitSlice(kind, type, x, y, vx, vy, dx, dy);
+            }
+        });
+        metrics = new FrameMetrics();
+        simulation.setMetrics(metrics);
+        showMetrics = Boolean.getBoolean("fruitninja.metrics.overlay");
         gameOver = false;
-        score = 0;
-        lives = 3;
-        swipeActive = false;
-        swipePoints = new ArrayList<>();
-        currentSwipeFruitCount = 0;
-        comboMessage = "";
-        comboMessageTimer = 0;
-        slowMotionActive = false;
-        slowMotionTimer = 0;
-        
-        spawnInterval = INITIAL_SPAWN_INTERVAL;
-        spawnCounter = 0;
-        nextDifficultyScoreThreshold = 50; // Increase difficulty at score 50, then 100, etc.
-        
+        firstFrame = startLoop;
+        if (startLoop) {
+            startRecording(seed);
+            openScores();
+            startServer();
+            startBotFromProperties(seed);
+        } else {
+            scores = new ScoreStore(null);
+        }
+
         // Setup mouse listeners for swipe detection (FR2)
         addMouseListener(this);
         addMouseMotionListener(this);
         setFocusable(true);
-        
+
+        // F3 toggles the performance overlay
+        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "toggleMetrics");
+        getActionMap().put("toggleMetrics", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                showMetrics = !showMetrics;
+                synchronized (stateLock) {
+                    repaintAll = true;
+                }
+                repaint();
+            }
+        });
+
         // Setup game over buttons (UIR6)
         restartButton = new JButton("Restart");
         exitButton = new JButton("Exit");
@@ -106,294 +171,527 @@ public class GamePanel extends JPanel implements ActionListener, MouseListener,
                 System.exit(0);
             }
         });
-        
-        // Start the game loop timer (UIR2 - smooth animations)
-        timer = new Timer(16, this); // ~60 FPS
-        timer.start();
+
+        // Optional active rendering: the loop presents each frame itself instead of going through repaint()
+        if (Boolean.getBoolean("fruitninja.activeRendering")) {
+            activeRenderer = new ActiveRenderer(this, new ActiveRenderer.Scene() {
+                public void paintScene(Graphics2D g) {
+                    synchronized (stateLock) {
+                        paintView(g);
+                    }
+                }
+            });
+        }
+
+        // Start the game loop (UIR2 - smooth animations): fixed-rate ticks, frames at display refresh rate
+        int framesPerSecond = displayRefreshRate();
+        governor = new QualityGovernor(framesPerSecond);
+        loop = new GameLoop(this, framesPerSecond);
+        if (startLoop) {
+            metrics.start();
+            loop.start();
+        }
     }
-    
-    // Game loop tick - called by timer every frame
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        if (!gameOver) {
-            // Spawn new objects at intervals (FR1)
-            spawnCounter++;
-            if (spawnCounter >= spawnInterval) {
-                spawnObject(); // Launch a new fruit/bonus/bomb from bottom
-                spawnCounter = 0;
-            }
-            
-            // Update positions of all objects (UIR2 - smooth movement)
-            double speedFactor = slowMotionActive ? 0.5 : 1.0; // If slow motion bonus active, move at half speed
-            for (GameObject obj : objects) {
-                obj.update(speedFactor);
+
+    // Load the score log and make sure its writer finishes when the JVM exits
+    private void openScores() {
+        scores = new ScoreStore(ScoreStore.defaultPath());
+        // Let the writer finish the last game however the game is closed
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            public void run() {
+                scores.close(1000);
             }
-            
-            // Apply gravity uniformly to objects (part of update)
-            // Check for objects that went out of bounds
-            Iterator<GameObject> it = objects.iterator();
-            while (it.hasNext()) {
-                GameObject obj = it.next();
-                if (obj.isOffScreen(WIDTH, HEIGHT)) {
-                    // If a fruit was missed (fell off bottom without being sliced), lose a life (like missing fruit in Fruit Ninja)
-                    if (!obj.isSliced()) {
-                        if (obj instanceof Fruit) {
-                            loseLife(); // Player missed a fruit
-                        }
-                        // No penalty for missing bombs or bonuses; they simply disappear if not sliced
-                    }
-                    it.remove();
+        }, "score-store-close"));
+    }
+
+    // Record the session for ReplayRunner when -Dfruitninja.record names a file
+    private void startRecording(long seed) {
+        String path = System.getProperty("fruitninja.record");
+        if (path == null || path.isEmpty()) {
+            return;
+        }
+        try {
+            recorder = new ReplayRecorder(Paths.get(path), seed);
+        } catch (IOException e) {
+            System.err.println("Replay recording disabled: " + e);
+            return;
+        }
+        // Finish the file however the game is closed (Exit button, window close)
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            public void run() {
+                synchronized (stateLock) {
+                    recorder.close(simulation.getTickCount(), simulation.getScore());
                 }
             }
-            
-            // Decrease slow motion timer if active (FR4/FR5 slow-motion effect)
-            if (slowMotionActive) {
-                slowMotionTimer--;
-                if (slowMotionTimer <= 0) {
-                    slowMotionActive = false;
+        }, "replay-recorder-close"));
+    }
+
+    // Stream the game to spectators when -Dfruitninja.serve names a port: on the loopback interface,
+    // or on the given address for "address:port"
+    private void startServer() {
+        String spec = System.getProperty("fruitninja.serve");
+        if (spec == null || spec.isEmpty()) {
+            return;
+        }
+        int colon = spec.lastIndexOf(':');
+        try {
+            int port = Integer.parseInt(spec.substring(colon + 1).trim());
+            if (colon < 0) {
+                server = new SnapshotServer(port);
+            } else {
+                InetSocketAddress address = new InetSocketAddress(spec.substring(0, colon).trim(), port);
+                if (address.isUnresolved()) {
+                    throw new IOException("unknown address " + address.getHostString());
                 }
+                server = new SnapshotServer(address);
             }
-            
-            // Decrease combo message display timer
-            if (comboMessageTimer > 0) {
-                comboMessageTimer--;
-                if (comboMessageTimer == 0) {
-                    comboMessage = "";
+        } catch (IllegalArgumentException | IOException e) { // bad number or port out of range
+            System.err.println("Spectator server disabled: " + e);
+            return;
+        }
+        System.out.println("Serving spectators on " + server.getAddress() + " port " + server.getPort());
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            public void run() {
+                synchronized (stateLock) {
+                    server.close();
                 }
             }
-            
-            // Increase difficulty as score grows (FR7)
-            if (score >= nextDifficultyScoreThreshold) {
-                // Increase difficulty: speed up spawns (reduce interval)
-                spawnInterval = Math.max(20, spawnInterval - 10); // Faster spawn, not below 20 frames (~0.3s)
-                nextDifficultyScoreThreshold += 50;  // Next threshold (increase every 50 points)
+        }, "snapshot-server-close"));
+    }
+
+    // Let a bot play when -Dfruitninja.bot names a skill level (novice, casual, expert, perfect),
+    // sending -Dfruitninja.bot.rate input records per second
+    private void startBotFromProperties(long seed) {
+        String name = System.getProperty("fruitninja.bot");
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        BotPlayer.Skill skill = BotPlayer.parseSkill(name);
+        if (skill == null) {
+            System.err.println("Unknown fruitninja.bot skill " + name + "; playing without a bot");
+            return;
+        }
+        int rate = Integer.getInteger("fruitninja.bot.rate", BotPlayer.DEFAULT_EVENTS_PER_SECOND);
+        if (rate <= 0) {
+            System.err.println("Invalid fruitninja.bot.rate " + rate + "; using " + BotPlayer.DEFAULT_EVENTS_PER_SECOND
+                    + " events/s");
+            rate = BotPlayer.DEFAULT_EVENTS_PER_SECOND;
+        }
+        startBot(skill, rate, seed);
+    }
+
+    // Start a bot with the default planner; games it loses are restarted after a moment
+    void startBot(BotPlayer.Skill skill, int eventsPerSecond, long seed) {
+        bot = new BotPlayer(new TrajectoryPlanner(), skill, eventsPerSecond, botQueue, stateLock, simulation, seed);
+        bot.start();
+    }
+
+    BotPlayer getBot() {
+        return bot;
+    }
+
+    FrameMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Input records refused by the mouse and bot queues since the panel was made
+    long getInputDropped() {
+        return inputQueue.getDropped() + botQueue.getDropped();
+    }
+
+    // Games finished since the panel was made
+    int getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    // Refresh rate of the default screen, used as the render rate of the game loop
+    private static int displayRefreshRate() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return DEFAULT_FRAMES_PER_SECOND;
+        }
+        DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode();
+        int rate = mode.getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_FRAMES_PER_SECOND : rate;
+    }
+
+    // Game loop tick - called by the game loop thread once per fixed simulation step
+    @Override
+    public void tick() {
+        synchronized (stateLock) {
+            long start = System.nanoTime();
+            // Queued swipe segments are resolved here, against the positions of the last tick (FR2)
+            simulation.step(queuedInput);
+            particles.update(simulation.getTimeScale().get(TimeScale.PARTICLES));
+            if (server != null) {
+                server.publish(simulation);
             }
+            long tickNanos = System.nanoTime() - start;
+            metrics.recordTick(tickNanos, simulation);
+            frameTickNanos += tickNanos;
+            checkGameOver();
         }
-        
-        // Redraw the game scene
-        repaint();
-    }
-    
-    // Launch a new object from the bottom (could be fruit, bomb, or bonus) (FR1)
-    private void spawnObject() {
-        int xPos = rand.nextInt(WIDTH - 100) + 50; // Spawn somewhere near bottom, avoiding extreme edges
-        int yPos = HEIGHT + 10; // Just below bottom of screen
-        // Random velocities for a nice arc
-        double initVy = -(rand.nextDouble() * 5 + 15); // Upward velocity (negative y direction) ~[-15,-20]
-        double initVx = rand.nextDouble() * 6 - 3;     // Horizontal velocity between -3 and 3
-        // Randomly decide object type: mostly fruits, some bombs, some bonus
-        double r = rand.nextDouble();
-        GameObject newObj;
-        if (r < 0.70) {
-            // 70% chance fruit
-            newObj = new Fruit(xPos, yPos, initVx, initVy);
-        } else if (r < 0.85) {
-            // 15% chance bomb
-            newObj = new Bomb(xPos, yPos, initVx, initVy);
+    }
+
+    // The simulation this panel shows; only safe to use while the game loop is not running
+    GameSimulation getSimulation() {
+        return simulation;
+    }
+
+    // Present a frame - called by the game loop thread at display rate. The frame's work (its ticks,
+    // rendering and painting) goes to the quality governor, whose level is applied before drawing.
+    @Override
+    public void render(double alpha) {
+        long start = System.nanoTime();
+        boolean presented = renderFrame(alpha);
+        long work = frameTickNanos + System.nanoTime() - start;
+        if (!presented) {
+            // Swing paints later on the EDT; count the last paint it did
+            work += lastPaintNanos;
+        }
+        frameTickNanos = 0;
+        governor.recordFrame(work);
+    }
+
+    // Only the damaged parts of the panel are repainted: where objects and the trail were drawn last
+    // frame, where they are now, and HUD areas whose text changed. Damage over half the panel falls
+    // back to a full repaint. Returns true if the frame was presented directly (active rendering).
+    private boolean renderFrame(double alpha) {
+        renderAlpha = alpha;
+        DamageRegion screen;
+        synchronized (stateLock) {
+            Viewport view = updateViewport();
+            int level = governor.getLevel();
+            if (level != qualityLevel) {
+                applyQuality(level);
+            }
+            damage.clear();
+            if (repaintAll) {
+                damage.setFull();
+                repaintAll = false;
+            } else {
+                damage.addAll(painted);
+                // Swing may paint after another tick has run, so cover that tick's movement too
+                simulation.getObjects().addDamage(damage, alpha, simulation.getTimeScale().getScales());
+                particles.addDamage(damage);
+                swipeTrail.addDamage(damage);
+            }
+            hud.addDamage(damage, simulation.getScore(), simulation.getLives(), simulation.getComboMessage(),
+                    showMetrics ? metrics.getOverlayLines() : null, WIDTH, HEIGHT);
+            screen = screenDamage;
+            if (screen != damage) {
+                screen.clear();
+                view.toScreen(damage, screen);
+            }
+        }
+        // The game over screen stays on Swing painting so the Restart/Exit buttons are drawn
+        if (activeRenderer != null && !gameOver && activeRenderer.present(screen)) {
+            synchronized (stateLock) {
+                recordPainted(null, alpha);
+                recordPaintTime();
+            }
+            return true;
+        }
+        if (screen.isFull()) {
+            repaint();
         } else {
-            // 15% chance bonus item
-            newObj = new BonusItem(xPos, yPos, initVx, initVy);
+            // The RepaintManager unions these into one clip rectangle for the next paint
+            for (int k = 0; k < screen.getCount(); k++) {
+                repaint(screen.getX(k), screen.getY(k), screen.getWidth(k), screen.getHeight(k));
+            }
         }
-        objects.add(newObj);
+        return false;
     }
-    
-    // Handle losing one life (common routine for bomb hit or missed fruit)
-    private void loseLife() {
-        lives--;
-        if (lives <= 0) {
-            lives = 0;
-            endGame(); // Trigger game over if no lives left (FR8)
+
+    // Make a new viewport if the panel's size or display changed; called with the state lock held
+    private Viewport updateViewport() {
+        Viewport view = viewport;
+        int width = getWidth();
+        int height = getHeight();
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (width <= 0 || height <= 0 || view.matches(width, height, gc)) {
+            return view;
         }
+        view = Viewport.create(WIDTH, HEIGHT, width, height, gc);
+        viewport = view;
+        screenDamage = view.isDirect() ? damage : new DamageRegion(width, height);
+        repaintAll = true;
+        return view;
     }
-    
+
+    // Keep the game over buttons centered on the world when the panel is resized
+    @Override
+    public void doLayout() {
+        Viewport view;
+        synchronized (stateLock) {
+            view = updateViewport();
+        }
+        int centerX = view.toScreenX(WIDTH / 2);
+        int centerY = view.toScreenY(HEIGHT / 2);
+        restartButton.setBounds(centerX - 60, centerY - 10, 120, 30);
+        exitButton.setBounds(centerX - 60, centerY + 30, 120, 30);
+    }
+
+    // Set the cost levers for a quality level; called with the state lock held
+    private void applyQuality(int level) {
+        qualityLevel = level;
+        swipeTrail.setQuality(QualityGovernor.isAntialiased(level), QualityGovernor.isShortTrail(level));
+        sprites.setQuality(QualityGovernor.isAntialiased(level), QualityGovernor.hasOutlines(level),
+                QualityGovernor.isHardSprites(level));
+        particles.setEmissionScale(QualityGovernor.getParticleScale(level));
+        repaintAll = true; // every object looks different
+    }
+
+    // Damage of the last rendered frame (for DamageRenderingBenchmark)
+    DamageRegion getDamage() {
+        return damage;
+    }
+
+    // The same damage in panel coordinates, i.e. what was passed to repaint()
+    DamageRegion getScreenDamage() {
+        return screenDamage;
+    }
+
+    // Remember what a paint with the given clip (null for the whole panel) left on screen
+    private void recordPainted(Rectangle clip, double alpha) {
+        if (clip == null || painted.isInside(clip.x, clip.y, clip.x + clip.width, clip.y + clip.height)) {
+            // Everything drawn before was inside the clip and has been redrawn
+            painted.clear();
+        }
+        simulation.getObjects().addDamage(painted, alpha, null);
+        particles.addDamage(painted);
+        swipeTrail.addDamage(painted);
+    }
+
+    // Show the Game Over screen once the simulation has ended (FR8, UIR6)
+    private void checkGameOver() {
+        if (simulation.isGameOver() && !gameOver) {
+            endGame();
+        }
+    }
+
     // End the game and show Game Over screen (FR8, UIR6)
+    // May run on the game loop thread, so Swing components are only touched on the EDT
     private void endGame() {
         gameOver = true;
-        timer.stop();
-        // Update high score
-        if (score > FruitNinjaGame.highScore) {
-            FruitNinjaGame.highScore = score;
+        gamesPlayed++;
+        repaintAll = true; // the overlay covers the whole panel
+        loop.stop();
+        // Update the high scores; the store writes them to disk on its own thread
+        scores.submit(simulation.getScore(), simulation.getTickCount() * 1000 / GameLoop.TICKS_PER_SECOND,
+                simulation.getFruitsSliced(), simulation.getComboCount());
+        // Get the finished game on disk
+        if (recorder != null) {
+            recorder.flush();
         }
         // Show game over options
-        restartButton.setVisible(true);
-        exitButton.setVisible(true);
-        // Force repaint to draw "Game Over" text and scores
-        repaint();
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                restartButton.setVisible(true);
+                exitButton.setVisible(true);
+                // Force repaint to draw "Game Over" text and scores
+                repaint();
+                // A bot keeps playing: show the scores for a moment, then start the next game
+                if (bot != null) {
+                    Timer restart = new Timer(BOT_RESTART_MILLIS, new ActionListener() {
+                        public void actionPerformed(ActionEvent e) {
+                            if (gameOver) {
+                                restartGame();
+                            }
+                        }
+                    });
+                    restart.setRepeats(false);
+                    restart.start();
+                }
+            }
+        });
     }
-    
-    // Restart the game after game over
+
+    // Restart the game after game over; the reset itself happens on the loop thread, in input order
     private void restartGame() {
-        // Reset game state
-        score = 0;
-        lives = 3;
-        objects.clear();
-        swipePoints.clear();
-        swipeActive = false;
-        currentSwipeFruitCount = 0;
-        comboMessage = "";
-        comboMessageTimer = 0;
-        slowMotionActive = false;
-        slowMotionTimer = 0;
-        gameOver = false;
-        // Reset difficulty
-        spawnInterval = INITIAL_SPAWN_INTERVAL;
-        spawnCounter = 0;
-        nextDifficultyScoreThreshold = 50;
+        queueRestart();
         // Hide game over buttons
         restartButton.setVisible(false);
         exitButton.setVisible(false);
-        // Restart timer loop
-        timer.start();
+        // Restart game loop
+        loop.start();
+    }
+
+    // Start a new game at the next tick; offscreen drivers that tick the panel themselves call this directly
+    void queueRestart() {
+        inputQueue.offer(InputQueue.RESTART, 0, 0, currentTimeMillis());
     }
-    
+
+    // Apply one queued input record; runs on the game loop thread with the state lock held.
+    // (A restart may briefly overlap the old loop thread's last frame, but the lock keeps drains serial.)
+    private void applyInput(byte type, int x, int y, long timeMillis) {
+        switch (type) {
+            case InputQueue.PRESS:
+                simulation.swipeStart(x, y);
+                if (recorder != null) {
+                    recorder.press(simulation.getTickCount(), x, y);
+                }
+                // Record starting point of swipe
+                swipeTrail.clear();
+                swipeTrail.add(x, y, timeMillis);
+                break;
+            case InputQueue.DRAG:
+                if (!simulation.isSwipeActive()) {
+                    break;
+                }
+                // Add point to swipe trail (decimated, display only); the simulation checks every raw segment
+                swipeTrail.add(x, y, timeMillis);
+                simulation.swipeMove(x, y);
+                if (recorder != null) {
+                    recorder.drag(simulation.getTickCount(), x, y);
+                }
+                break;
+            case InputQueue.RELEASE:
+                simulation.swipeEnd();
+                if (recorder != null) {
+                    recorder.release(simulation.getTickCount());
+                }
+                swipeTrail.clear();
+                break;
+            case InputQueue.RESTART:
+                if (recorder != null) {
+                    recorder.reset(simulation.getTickCount(), simulation.getScore());
+                }
+                simulation.reset();
+                swipeTrail.clear();
+                particles.clear();
+                gameOver = false;
+                repaintAll = true;
+                break;
+        }
+    }
+
     // Paint the game elements on the screen (called by Swing)
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        // Draw all active game objects (UIR2)
-        for (GameObject obj : objects) {
-            obj.draw(g);
-        }
-        // Draw the swipe trail (UIR1)
-        if (!swipePoints.isEmpty()) {
-            Graphics2D g2 = (Graphics2D) g;
-            g2.setColor(Color.WHITE);
-            g2.setStroke(new java.awt.BasicStroke(3)); // Thicker line for the blade trail
-            for (int i = 0; i < swipePoints.size() - 1; i++) {
-                Point p1 = swipePoints.get(i);
-                Point p2 = swipePoints.get(i + 1);
-                g2.drawLine(p1.x, p1.y, p2.x, p2.y);
+        synchronized (stateLock) {
+            paintView((Graphics2D) g);
+            recordPainted(paintClip, renderAlpha);
+            recordPaintTime();
+        }
+    }
+
+    // Paint time of the frame just presented, once per frame however many paintGame passes it took
+    // (a lost back buffer is drawn again); called with the state lock held
+    private void recordPaintTime() {
+        if (framePaintNanos < 0) {
+            return; // only the letterbox bars were drawn
+        }
+        metrics.recordPaint(framePaintNanos);
+        lastPaintNanos = framePaintNanos;
+        framePaintNanos = -1;
+    }
+
+    // Draw the frame inside g's clip, straight onto g when the viewport is direct and through the
+    // back buffer otherwise. Leaves the world area that was redrawn in paintClip. Needs the state lock.
+    private void paintView(Graphics2D g) {
+        Viewport view = updateViewport();
+        // getClipBounds leaves the rectangle alone when there is no clip
+        paintClip.setBounds(0, 0, getWidth(), getHeight());
+        g.getClipBounds(paintClip);
+        if (view.isDirect()) {
+            // Clear to the background ourselves; the UI delegate's update() allocates a scratch Graphics each call
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            paintGame(g, 1.0);
+            return;
+        }
+        // Letterbox bars around the world
+        int x0 = view.getOffsetX(), y0 = view.getOffsetY();
+        int x1 = x0 + view.getScreenWidth(), y1 = y0 + view.getScreenHeight();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, x0, view.getHeight());
+        g.fillRect(x1, 0, view.getWidth() - x1, view.getHeight());
+        g.fillRect(x0, 0, x1 - x0, y0);
+        g.fillRect(x0, y1, x1 - x0, view.getHeight() - y1);
+        // Redraw the part of the world under the clip in the back buffer, then copy it to the screen
+        view.toWorld(paintClip);
+        if (paintClip.isEmpty()) {
+            return; // only the bars were damaged
+        }
+        GraphicsConfiguration gc = g.getDeviceConfiguration();
+        if (backBuffer == null || backBuffer.getWidth() != view.getBufferWidth()
+                || backBuffer.getHeight() != view.getBufferHeight()) {
+            if (backGraphics != null) {
+                backGraphics.dispose();
             }
-            // Reset stroke to default
-            g2.setStroke(new java.awt.BasicStroke(1));
-        }
-        // Draw score and lives (UIR3, UIR4)
-        g.setColor(Color.WHITE);
-        g.drawString("Score: " + score, 10, 20);
-        // Draw lives as heart icons
-        g.drawString("Lives:", 10, 40);
-        for (int i = 0; i < lives; i++) {
-            // Draw a heart symbol for each life (use Unicode heart)
-            g.setColor(Color.RED);
-            g.drawString("\u2665", 60 + i * 15, 40);
-        }
-        // Reset color for later drawings
-        g.setColor(Color.WHITE);
-        // Draw combo or bonus message if active (UIR5)
-        if (comboMessage != null && !comboMessage.isEmpty()) {
-            g.setFont(new Font("SansSerif", Font.BOLD, 24));
-            // Display combo message at center-top of screen
-            Font originalFont = g.getFont();
-            FontMetrics fm = g.getFontMetrics();
-            int textWidth = fm.stringWidth(comboMessage);
-            g.drawString(comboMessage, (WIDTH - textWidth) / 2, 50);
-            g.setFont(originalFont);
+            backBuffer = gc.createCompatibleImage(view.getBufferWidth(), view.getBufferHeight());
+            backGraphics = backBuffer.createGraphics();
+            backGraphics.scale(view.getBufferScale(), view.getBufferScale());
         }
+        backGraphics.setClip(paintClip.x, paintClip.y, paintClip.width, paintClip.height);
+        backGraphics.setColor(getBackground());
+        backGraphics.fillRect(paintClip.x, paintClip.y, paintClip.width, paintClip.height);
+        paintGame(backGraphics, view.getBufferScale());
+        if (view.isUpscaled()) {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+        g.drawImage(backBuffer, x0, y0, x1, y1, 0, 0, backBuffer.getWidth(), backBuffer.getHeight(), null);
+    }
+
+    // Draw the game in world coordinates; pixelScale is the number of pixels per world unit of g
+    private void paintGame(Graphics g, double pixelScale) {
+        long start = System.nanoTime();
+        // Draw all active game objects from the sprite cache, interpolated between the last two ticks (UIR2)
+        sprites.validate(((Graphics2D) g).getDeviceConfiguration(), pixelScale);
+        simulation.getObjects().draw(g, renderAlpha, sprites);
+        // Juice and debris of sliced objects, in one batch
+        particles.draw(g, renderAlpha);
+        // Draw the fading swipe trail (UIR1)
+        swipeTrail.draw((Graphics2D) g, currentTimeMillis());
+        // Draw score and lives (UIR3, UIR4) from the cached status image
+        hud.drawStatus(g, simulation.getScore(), simulation.getLives(), pixelScale);
+        // Draw combo or bonus message if active (UIR5)
+        hud.drawComboMessage(g, simulation.getComboMessage(), WIDTH);
         // Draw game over screen overlay (UIR6)
         if (gameOver) {
-            Graphics2D g2 = (Graphics2D) g;
-            g2.setColor(new Color(0, 0, 0, 150)); // Semi-transparent dark overlay
-            g2.fillRect(0, 0, WIDTH, HEIGHT);
-            g2.setColor(Color.WHITE);
-            g2.setFont(new Font("SansSerif", Font.BOLD, 36));
-            String gameOverText = "Game Over";
-            FontMetrics fm = g2.getFontMetrics();
-            int textWidth = fm.stringWidth(gameOverText);
-            g2.drawString(gameOverText, (WIDTH - textWidth) / 2, HEIGHT/2 - 80);
-            g2.setFont(new Font("SansSerif", Font.PLAIN, 18));
-            String finalScoreText = "Final Score: " + score;
-            String highScoreText = "High Score: " + FruitNinjaGame.highScore;
-            g2.drawString(finalScoreText, WIDTH/2 - 80, HEIGHT/2 - 40);
-            g2.drawString(highScoreText, WIDTH/2 - 80, HEIGHT/2 - 20);
-            // Buttons (Restart and Exit) are already added and visible on top
-        }
-    }
-    
-    // MouseListener and MouseMotionListener implementations for swipe detection (FR2)
+            hud.drawGameOver(g, WIDTH, HEIGHT, simulation.getScore(), scores.getTopScores());
+        }
+        framePaintNanos = Math.max(framePaintNanos, 0) + System.nanoTime() - start;
+        // Performance overlay (not part of the measured paint time)
+        if (showMetrics) {
+            hud.drawMetrics(g, metrics.getOverlayLines(), HEIGHT);
+        }
+        if (firstFrame) {
+            firstFrame = false;
+            Startup.gameFramePainted();
+        }
+    }
+
+    // Monotonic clock for trail ages
+    private static long currentTimeMillis() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    // MouseListener and MouseMotionListener implementations for swipe detection (FR2).
+    // The EDT only queues the event (no lock, no collision work); the game loop applies it next tick.
+    // Positions are queued in world coordinates, so swipes and replays do not depend on the panel size.
     @Override
     public void mousePressed(MouseEvent e) {
-        swipeActive = true;
-        currentSwipeFruitCount = 0;
-        swipePoints.clear();
-        // Record starting point of swipe
-        swipePoints.add(new Point(e.getX(), e.getY()));
+        if (gameOver) return; // The loop is stopped; swipes on the game over screen do nothing
+        Viewport view = viewport;
+        inputQueue.offer(InputQueue.PRESS, view.toWorldX(e.getX()), view.toWorldY(e.getY()), currentTimeMillis());
     }
 
     @Override
     public void mouseReleased(MouseEvent e) {
-        if (swipeActive) {
-            // Swipe ended, check for combo bonuses (FR4)
-            if (currentSwipeFruitCount >= 3) {
-                // Player sliced 3 or more fruits in one swipe -> combo
-                int bonusPoints = currentSwipeFruitCount; // e.g., +N points for an N-fruit combo
-                score += bonusPoints;
-                String message = currentSwipeFruitCount + " Fruits Combo! +" + bonusPoints + " points";
-                // Extra reward for large combos
-                if (currentSwipeFruitCount >= 5) {
-                    // Reward an extra life for combos of 5 or more (special reward as per FR4)
-                    if (lives < 5) { // Cap max lives to 5
-                        lives++;
-                    }
-                    message += " +1 Life!";
-                }
-                comboMessage = message;
-                comboMessageTimer = 60; // Display message for ~60 frames (1 second)
-            }
-        }
-        swipeActive = false;
-        swipePoints.clear();
+        if (gameOver) return;
+        Viewport view = viewport;
+        inputQueue.offer(InputQueue.RELEASE, view.toWorldX(e.getX()), view.toWorldY(e.getY()), currentTimeMillis());
     }
 
     @Override
     public void mouseDragged(MouseEvent e) {
-        if (!swipeActive) return;
-        // Add point to swipe trail
-        swipePoints.add(new Point(e.getX(), e.getY()));
-        // Check line segment from last point to new point for intersections with objects (FR2, FR3, FR5, FR6)
-        if (swipePoints.size() >= 2) {
-            int n = swipePoints.size();
-            Point p1 = swipePoints.get(n - 2);
-            Point p2 = swipePoints.get(n - 1);
-            // Check each game object for collision with swipe line
-            Iterator<GameObject> it = objects.iterator();
-            while (it.hasNext()) {
-                GameObject obj = it.next();
-                if (!obj.isSliced() && obj.intersectsLine(p1.x, p1.y, p2.x, p2.y)) {
-                    // Object is sliced by the swipe
-                    obj.setSliced(true);
-                    if (obj instanceof Fruit) {
-                        Fruit fruit = (Fruit) obj;
-                        score += fruit.getPointValue(); // Increase score based on fruit type (FR3)
-                        currentSwipeFruitCount++;
-                    } else if (obj instanceof Bomb) {
-                        // Bomb sliced - lose a life (FR6)
-                        loseLife();
-                    } else if (obj instanceof BonusItem) {
-                        BonusItem bonus = (BonusItem) obj;
-                        score += bonus.getPointValue(); // Optional points for bonus
-                        // Activate bonus effect (FR5)
-                        if (bonus.getBonusType() == BonusItem.BonusType.EXTRA_LIFE) {
-                            if (lives < 5) {
-                                lives++;
-                            }
-                            comboMessage = "+1 Life!"; // Display life gain message (UIR5)
-                            comboMessageTimer = 60;
-                        } else if (bonus.getBonusType() == BonusItem.BonusType.SLOW_MOTION) {
-                            slowMotionActive = true;
-                            slowMotionTimer = 150; // Slow motion for 150 frames (~3 seconds)
-                            comboMessage = "Slow Motion Activated!"; // Display slow-mo message
-                            comboMessageTimer = 60;
-                        }
-                    }
-                    // Remove the object from play
-                    it.remove();
-                }
-            }
-        }
-        // Repaint to update screen (trail drawing and possibly object removal visual)
-        repaint();
+        if (gameOver) return;
+        Viewport view = viewport;
+        inputQueue.offer(InputQueue.DRAG, view.toWorldX(e.getX()), view.toWorldY(e.getY()), currentTimeMillis());
+        // No repaint here: the game loop draws the trail and sliced objects on its next frame
     }
-    
+
     // Unused interface methods
     @Override public void mouseClicked(MouseEvent e) {}
     @Override public void mouseEntered(MouseEvent e) {}
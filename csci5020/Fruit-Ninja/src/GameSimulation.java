@@ -0,0 +1,286 @@
+import java.util.Random;
+
+// Headless game core: spawning, physics, slicing, scoring, combos, lives, difficulty and the
+// slow-motion bonus (FR1-FR8), with no Swing dependency. Everything random comes from one seeded
+// Random, so the same seed and the same inputs always play out the same game.
+// Not thread-safe; GamePanel guards it with its state lock.
+public class GameSimulation {
+    // World size and physics, in world units and ticks; GamePanel scales the world to its size (Viewport)
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 600;
+    public static final double GRAVITY = 0.5; // gravity acceleration (pixels per tick^2)
+    public static final int OBJECT_RADIUS = 20;  // radius of every fruit, bomb and bonus
+    private static final int INITIAL_LIVES = 3;
+    private static final int MAX_LIVES = 5;
+    // Effect durations in simulation time (GameLoop.TICKS_PER_SECOND ticks per second), independent of frame rate
+    private static final int COMBO_MESSAGE_TICKS = GameLoop.TICKS_PER_SECOND;          // 1 second
+    private static final double SLOW_MOTION_SECONDS = 2.5;
+    private static final double SLOW_MOTION_EASE_IN = 0.15;   // seconds to slow down
+    private static final double SLOW_MOTION_EASE_OUT = 0.4;   // seconds to get back to full speed
+    // Slow-motion bonus: everything, particles included, at half speed (indexed by TimeScale category)
+    private static final double[] SLOW_MOTION_SCALES = { 0.5, 0.5, 0.5, 0.5 };
+
+    // Source of swipe input for one tick (scripted swipes, AI players); feeds events through swipeStart/Move/End
+    public interface Input {
+        void beforeTick(GameSimulation simulation);
+    }
+
+    // Told about every sliced object, for visual effects; (dx, dy) is the blade segment that hit it
+    public interface Effects {
+        void sliced(byte kind, int type, double x, double y, double vx, double vy, int dx, int dy);
+    }
+
+    private final EntityStore objects;   // Active game objects (fruits, bombs, bonuses) on screen
+    private final SpatialGrid grid;      // Broad phase for swipe collision, rebuilt after every physics step
+    private final SweptCollision collider; // Swept swipe-vs-object tests, hits ordered by time
+    private final Random rand;           // The only random source of the game
+    private final SpawnScheduler spawner; // Launches objects following the wave table (FR1, FR7)
+    private FrameMetrics metrics;        // Optional timing of swipe collision, null when not instrumented
+    private Effects effects;             // Optional slice listener (particles), null when headless
+
+    private boolean gameOver;            // Flag indicating if game is over (FR8)
+    private int score;
+    private int lives;
+    private long tickCount;              // Ticks simulated since the game started
+    private long spawnCount;             // Objects launched since the game started
+    private int fruitsSliced;            // Fruits sliced this game (session statistics)
+    private int comboCount;              // Combos scored this game
+
+    // Swipe detection and combo tracking
+    private boolean swipeActive;         // Is the player currently swiping (mouse pressed and held)
+    private int lastSwipeX, lastSwipeY;  // Previous raw swipe position; every raw segment is checked for slices
+    private int currentSwipeFruitCount;  // Number of fruits sliced in current continuous swipe (for combos) (FR4)
+
+    // Combo message display
+    private String comboMessage;         // Message to display for combos or bonuses (UIR5)
+    private int comboMessageTimer;       // Ticks remaining to display the combo message
+
+    // Bonus effects
+    private final TimeScale timeScale = new TimeScale(); // Speed per object category from slow-motion effects
+
+    public GameSimulation(long seed) {
+        this(seed, WaveTable.getDefault());
+    }
+
+    // Game following the given difficulty curve instead of the configured one
+    public GameSimulation(long seed, WaveTable waves) {
+        objects = new EntityStore();
+        grid = new SpatialGrid(WIDTH, HEIGHT, OBJECT_RADIUS * 2);
+        collider = new SweptCollision();
+        rand = new Random(seed);
+        spawner = new SpawnScheduler(waves, rand, objects);
+        reset();
+    }
+
+    // Start a new game (keeps the random sequence going, so restarts differ)
+    public void reset() {
+        score = 0;
+        lives = INITIAL_LIVES;
+        tickCount = 0;
+        spawnCount = 0;
+        fruitsSliced = 0;
+        comboCount = 0;
+        objects.clear();
+        grid.rebuild(objects);
+        swipeActive = false;
+        currentSwipeFruitCount = 0;
+        comboMessage = "";
+        comboMessageTimer = 0;
+        timeScale.reset();
+        gameOver = false;
+        spawner.reset();
+    }
+
+    // Let the input source feed this tick's swipe events, then advance one tick
+    public void step(Input input) {
+        input.beforeTick(this);
+        step();
+    }
+
+    // Advance game state by one tick
+    public void step() {
+        if (gameOver) {
+            return;
+        }
+        tickCount++;
+        // Evaluate the active time effects once into the per-category scale table for this tick
+        timeScale.tick();
+        // Spawn new objects at the current wave's interval; the wave follows the score (FR1, FR7)
+        spawnCount += spawner.tick(score);
+
+        // Update positions of all objects and remove those that went out of bounds in one pass (UIR2 - smooth movement)
+        int missedFruits = objects.updateAndCull(timeScale.getScales(), WIDTH, HEIGHT);
+        // If a fruit was missed (fell off bottom without being sliced), lose a life (like missing fruit in Fruit Ninja)
+        // No penalty for missing bombs or bonuses; they simply disappear if not sliced
+        for (int i = 0; i < missedFruits; i++) {
+            loseLife(); // Player missed a fruit
+        }
+        // Re-bucket objects at their new positions for the swipe queries until the next tick
+        grid.rebuild(objects);
+
+        // Decrease combo message display timer
+        if (comboMessageTimer > 0) {
+            comboMessageTimer--;
+            if (comboMessageTimer == 0) {
+                comboMessage = "";
+            }
+        }
+    }
+
+    // Launch one object of the current wave from the bottom (could be fruit, bomb, or bonus) (FR1)
+    // Package-private so the spawn path can be benchmarked on its own
+    void spawnObject() {
+        spawner.spawn(); // Objects are pooled slots in the entity store, so spawning does not allocate
+        spawnCount++;
+    }
+
+    // Handle losing one life (common routine for bomb hit or missed fruit)
+    private void loseLife() {
+        lives--;
+        if (lives <= 0) {
+            lives = 0;
+            gameOver = true; // Game over when no lives are left (FR8)
+        }
+    }
+
+    // Swipe input (FR2): mouse pressed at (x, y)
+    public void swipeStart(int x, int y) {
+        swipeActive = true;
+        currentSwipeFruitCount = 0;
+        lastSwipeX = x;
+        lastSwipeY = y;
+    }
+
+    // Swipe input: mouse dragged to (x, y); slices everything along the segment from the previous position
+    public void swipeMove(int x, int y) {
+        if (!swipeActive || gameOver) return;
+        // Check line segment from last raw point to new point for intersections with objects (FR2, FR3, FR5, FR6)
+        int x1 = lastSwipeX;
+        int y1 = lastSwipeY;
+        lastSwipeX = x;
+        lastSwipeY = y;
+        sliceAlong(x1, y1, x, y);
+    }
+
+    // Swipe input: mouse released
+    public void swipeEnd() {
+        if (swipeActive && !gameOver) {
+            // Swipe ended, check for combo bonuses (FR4)
+            if (currentSwipeFruitCount >= 3) {
+                // Player sliced 3 or more fruits in one swipe -> combo
+                int bonusPoints = currentSwipeFruitCount; // e.g., +N points for an N-fruit combo
+                score += bonusPoints;
+                comboCount++;
+                String message = currentSwipeFruitCount + " Fruits Combo! +" + bonusPoints + " points";
+                // Extra reward for large combos
+                if (currentSwipeFruitCount >= 5) {
+                    // Reward an extra life for combos of 5 or more (special reward as per FR4)
+                    if (lives < MAX_LIVES) { // Cap max lives to 5
+                        lives++;
+                    }
+                    message += " +1 Life!";
+                }
+                comboMessage = message;
+                comboMessageTimer = COMBO_MESSAGE_TICKS; // Display message for 1 second
+            }
+        }
+        swipeActive = false;
+    }
+
+    // Slice every object touched by the swipe segment (x1,y1)->(x2,y2) and apply its effect.
+    // Objects are tested along the path they covered in the last tick, and hits are applied in the
+    // order the blade reached them.
+    private void sliceAlong(int x1, int y1, int x2, int y2) {
+        long start = metrics != null ? System.nanoTime() : 0;
+        int hitCount = collider.collide(objects, grid, x1, y1, x2, y2);
+        if (metrics != null) {
+            metrics.recordCollision(System.nanoTime() - start);
+        }
+        for (int k = 0; k < hitCount; k++) {
+            int i = collider.getHit(k);
+            // Object is sliced by the swipe; it is hidden now and removed from play on the next tick
+            objects.setSliced(i, true);
+            byte kind = objects.getKind(i);
+            if (effects != null) {
+                effects.sliced(kind, objects.getType(i), objects.getX(i), objects.getY(i),
+                        objects.getVx(i), objects.getVy(i), x2 - x1, y2 - y1);
+            }
+            if (kind == EntityStore.KIND_FRUIT) {
+                score += objects.getFruitType(i).getPoints(); // Increase score based on fruit type (FR3)
+                currentSwipeFruitCount++;
+                fruitsSliced++;
+            } else if (kind == EntityStore.KIND_BOMB) {
+                // Bomb sliced - lose a life (FR6)
+                loseLife();
+            } else if (kind == EntityStore.KIND_BONUS) {
+                BonusItem.BonusType bonusType = objects.getBonusType(i);
+                score += BonusItem.getPointValue(bonusType); // Optional points for bonus
+                // Activate bonus effect (FR5)
+                if (bonusType == BonusItem.BonusType.EXTRA_LIFE) {
+                    if (lives < MAX_LIVES) {
+                        lives++;
+                    }
+                    comboMessage = "+1 Life!"; // Display life gain message (UIR5)
+                    comboMessageTimer = COMBO_MESSAGE_TICKS;
+                } else if (bonusType == BonusItem.BonusType.SLOW_MOTION) {
+                    // Slow motion for 2.5 seconds of game time; stacks with one already running
+                    timeScale.start(SLOW_MOTION_SCALES, SLOW_MOTION_SECONDS, SLOW_MOTION_EASE_IN, SLOW_MOTION_EASE_OUT);
+                    comboMessage = "Slow Motion Activated!"; // Display slow-mo message
+                    comboMessageTimer = COMBO_MESSAGE_TICKS;
+                }
+            }
+        }
+    }
+
+    // Motion scales applied this tick, per object category (see TimeScale)
+    public TimeScale getTimeScale() {
+        return timeScale;
+    }
+
+    // Record swipe collision times into metrics (null to stop)
+    public void setMetrics(FrameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Report slices to effects (null to stop)
+    public void setEffects(Effects effects) {
+        this.effects = effects;
+    }
+
+    public EntityStore getObjects() {
+        return objects;
+    }
+    public boolean isGameOver() {
+        return gameOver;
+    }
+    public int getScore() {
+        return score;
+    }
+    public int getLives() {
+        return lives;
+    }
+    public long getTickCount() {
+        return tickCount;
+    }
+    public long getSpawnCount() {
+        return spawnCount;
+    }
+    public int getFruitsSliced() {
+        return fruitsSliced;
+    }
+    public int getComboCount() {
+        return comboCount;
+    }
+    public boolean isSwipeActive() {
+        return swipeActive;
+    }
+    public String getComboMessage() {
+        return comboMessage;
+    }
+    public int getSpawnInterval() {
+        return spawner.getInterval();
+    }
+    public int getWaveIndex() {
+        return spawner.getWaveIndex();
+    }
+}
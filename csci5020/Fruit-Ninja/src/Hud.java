@@ -0,0 +1,225 @@
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Locale;
+import javax.swing.JComponent;
+
+// Score/lives display, combo message and game over overlay (UIR3-UIR6) drawn without per-frame
+// allocation: fonts, colors and font metrics are created once, and the score/lives text is
+// rendered into a cached image that is only redrawn when one of the values changes.
+public class Hud {
+    private static final Font COMBO_FONT = new Font("SansSerif", Font.BOLD, 24);
+    private static final Font GAME_OVER_FONT = new Font("SansSerif", Font.BOLD, 36);
+    private static final Font FINAL_SCORE_FONT = new Font("SansSerif", Font.PLAIN, 18);
+    private static final Font METRICS_FONT = new Font("Monospaced", Font.PLAIN, 12);
+    private static final Font LEADERBOARD_FONT = new Font("Monospaced", Font.PLAIN, 14);
+    private static final Color OVERLAY_COLOR = new Color(0, 0, 0, 150); // Semi-transparent dark overlay
+    private static final Color METRICS_TEXT_COLOR = new Color(160, 255, 160);
+    private static final String GAME_OVER_TEXT = "Game Over";
+    private static final int STATUS_WIDTH = 200;   // area holding "Score: N" and the lives hearts
+    private static final int STATUS_HEIGHT = 48;
+    private static final int COMBO_BASELINE = 50;
+    private static final int METRICS_WIDTH = 360;
+    private static final int LEADERBOARD_ROWS = 5;
+
+    private final Font statusFont;     // the owner's font
+    private final FontMetrics comboMetrics;
+    private final FontMetrics metricsMetrics;
+    private final int gameOverTextWidth;
+
+    // Cached score/lives image and the values it shows
+    private BufferedImage statusImage;
+    private GraphicsConfiguration statusConfig;
+    private double statusScale;        // image pixels per world unit
+    private int statusScore = -1;
+    private int statusLives = -1;
+
+    // Last combo message and its measured width
+    private String comboText;
+    private int comboTextWidth;
+
+    // Game over texts, rebuilt only when the scores change
+    private String finalScoreText;
+    private String highScoreText;
+    private int finalScore = -1;
+    private ScoreStore.Session[] leaderboard;
+    private final String[] leaderboardText = new String[LEADERBOARD_ROWS];
+
+    // What the last addDamage call saw, to damage only areas whose content changed
+    private int damagedScore = -1;
+    private int damagedLives = -1;
+    private String damagedCombo = "";
+    private String[] damagedMetrics;
+
+    public Hud(JComponent owner) {
+        this.statusFont = owner.getFont();
+        this.comboMetrics = owner.getFontMetrics(COMBO_FONT);
+        this.metricsMetrics = owner.getFontMetrics(METRICS_FONT);
+        this.gameOverTextWidth = owner.getFontMetrics(GAME_OVER_FONT).stringWidth(GAME_OVER_TEXT);
+    }
+
+    // A HUD drawn without a component (Startup's warm-up): score and lives in statusFont, text
+    // measured with g's font metrics
+    Hud(Font statusFont, Graphics g) {
+        this.statusFont = statusFont;
+        this.comboMetrics = g.getFontMetrics(COMBO_FONT);
+        this.metricsMetrics = g.getFontMetrics(METRICS_FONT);
+        this.gameOverTextWidth = g.getFontMetrics(GAME_OVER_FONT).stringWidth(GAME_OVER_TEXT);
+    }
+
+    // Add the HUD areas whose content changed since the last call: the status image when the score or
+    // lives change, the old and new combo message, and the performance overlay (metricsLines is null when hidden)
+    public void addDamage(DamageRegion region, int score, int lives, String comboMessage, String[] metricsLines,
+                          int width, int height) {
+        if (score != damagedScore || lives != damagedLives) {
+            damagedScore = score;
+            damagedLives = lives;
+            region.add(0, 0, STATUS_WIDTH, STATUS_HEIGHT);
+        }
+        if (comboMessage != damagedCombo) {
+            addComboDamage(region, damagedCombo, width);
+            addComboDamage(region, comboMessage, width);
+            damagedCombo = comboMessage;
+        }
+        if (metricsLines != damagedMetrics) {
+            addMetricsDamage(region, damagedMetrics, height);
+            addMetricsDamage(region, metricsLines, height);
+            damagedMetrics = metricsLines;
+        }
+    }
+
+    private void addComboDamage(DamageRegion region, String message, int width) {
+        if (message == null || message.isEmpty()) {
+            return;
+        }
+        int textWidth = comboMetrics.stringWidth(message);
+        region.add((width - textWidth) / 2 - 2, COMBO_BASELINE - comboMetrics.getAscent() - 2,
+                (width + textWidth) / 2 + 2, COMBO_BASELINE + comboMetrics.getDescent() + 2);
+    }
+
+    private void addMetricsDamage(DamageRegion region, String[] lines, int height) {
+        if (lines != null) {
+            region.add(4, metricsTop(lines, height) - 4, 4 + METRICS_WIDTH, height - 4);
+        }
+    }
+
+    private int metricsTop(String[] lines, int height) {
+        return height - 8 - lines.length * metricsMetrics.getHeight();
+    }
+
+    // Draw score and lives (UIR3, UIR4)
+    public void drawStatus(Graphics g, int score, int lives) {
+        drawStatus(g, score, lives, 1.0);
+    }
+
+    // Same, on a frame drawn at pixelScale pixels per world unit (see Viewport): the cached image is
+    // rendered at that resolution so the text stays sharp
+    public void drawStatus(Graphics g, int score, int lives, double pixelScale) {
+        // Keep the cached image compatible with whatever surface we are drawing to
+        GraphicsConfiguration gc = ((Graphics2D) g).getDeviceConfiguration();
+        if (statusImage == null || gc != statusConfig || pixelScale != statusScale) {
+            statusConfig = gc;
+            statusScale = pixelScale;
+            statusImage = gc.createCompatibleImage((int) Math.ceil(STATUS_WIDTH * pixelScale),
+                    (int) Math.ceil(STATUS_HEIGHT * pixelScale), Transparency.TRANSLUCENT);
+            statusScore = -1;
+        }
+        if (score != statusScore || lives != statusLives) {
+            renderStatus(score, lives);
+        }
+        if (statusScale == 1.0) {
+            g.drawImage(statusImage, 0, 0, null);
+        } else {
+            g.drawImage(statusImage, 0, 0, STATUS_WIDTH, STATUS_HEIGHT, null);
+        }
+    }
+
+    private void renderStatus(int score, int lives) {
+        statusScore = score;
+        statusLives = lives;
+        Graphics2D g = statusImage.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, statusImage.getWidth(), statusImage.getHeight());
+        g.scale(statusScale, statusScale);
+        g.setComposite(AlphaComposite.SrcOver);
+        g.setFont(statusFont);
+        g.setColor(Color.WHITE);
+        g.drawString("Score: " + score, 10, 20);
+        // Draw lives as heart icons
+        g.drawString("Lives:", 10, 40);
+        g.setColor(Color.RED);
+        for (int i = 0; i < lives; i++) {
+            // Draw a heart symbol for each life (use Unicode heart)
+            g.drawString("\u2665", 60 + i * 15, 40);
+        }
+        g.dispose();
+    }
+
+    // Draw combo or bonus message at center-top of screen (UIR5)
+    public void drawComboMessage(Graphics g, String message, int width) {
+        if (message == null || message.isEmpty()) {
+            return;
+        }
+        if (message != comboText) { // a new message is a new String, so identity is enough
+            comboText = message;
+            comboTextWidth = comboMetrics.stringWidth(message);
+        }
+        Font originalFont = g.getFont();
+        g.setColor(Color.WHITE);
+        g.setFont(COMBO_FONT);
+        g.drawString(message, (width - comboTextWidth) / 2, COMBO_BASELINE);
+        g.setFont(originalFont);
+    }
+
+    // Draw the performance overlay lines (see FrameMetrics) in the bottom-left corner
+    public void drawMetrics(Graphics g, String[] lines, int height) {
+        Font originalFont = g.getFont();
+        g.setFont(METRICS_FONT);
+        int lineHeight = metricsMetrics.getHeight();
+        int top = metricsTop(lines, height);
+        g.setColor(OVERLAY_COLOR);
+        g.fillRect(4, top - 4, METRICS_WIDTH, lines.length * lineHeight + 8);
+        g.setColor(METRICS_TEXT_COLOR);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], 8, top + metricsMetrics.getAscent() + i * lineHeight);
+        }
+        g.setFont(originalFont);
+    }
+
+    // Draw game over screen overlay (UIR6); the Restart and Exit buttons are Swing components on top
+    // best is the store's leaderboard, highest score first (ScoreStore.getTopScores)
+    public void drawGameOver(Graphics g, int width, int height, int score, ScoreStore.Session[] best) {
+        if (score != finalScore || best != leaderboard) {
+            finalScore = score;
+            leaderboard = best;
+            finalScoreText = "Final Score: " + score;
+            highScoreText = "High Score: " + (best.length > 0 ? best[0].getScore() : score);
+            for (int i = 0; i < LEADERBOARD_ROWS; i++) {
+                leaderboardText[i] = i < best.length ? String.format(Locale.ROOT, "%d. %5d  %2d:%02d  %3d sliced", i + 1,
+                        best[i].getScore(), best[i].getDurationMillis() / 60000,
+                        best[i].getDurationMillis() / 1000 % 60, best[i].getSlices()) : null;
+            }
+        }
+        Font originalFont = g.getFont();
+        g.setColor(OVERLAY_COLOR);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.WHITE);
+        g.setFont(GAME_OVER_FONT);
+        g.drawString(GAME_OVER_TEXT, (width - gameOverTextWidth) / 2, height/2 - 80);
+        g.setFont(FINAL_SCORE_FONT);
+        g.drawString(finalScoreText, width/2 - 80, height/2 - 40);
+        g.drawString(highScoreText, width/2 - 80, height/2 - 20);
+        // Best games below the Restart and Exit buttons
+        g.setFont(LEADERBOARD_FONT);
+        for (int i = 0; i < LEADERBOARD_ROWS && leaderboardText[i] != null; i++) {
+            g.drawString(leaderboardText[i], width/2 - 120, height/2 + 100 + 20 * i);
+        }
+        g.setFont(originalFont);
+    }
+}
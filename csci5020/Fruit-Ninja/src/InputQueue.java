@@ -0,0 +1,77 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single-producer single-consumer ring of primitive input records (type, x, y, time): the EDT
+// offers mouse events, the game loop drains them once per tick. Neither side locks or allocates;
+// the producer publishes a record with a release store of the tail index and the consumer frees
+// slots the same way with the head index.
+//
+// Drag events are refused when the ring is nearly full, so presses, releases and restarts always
+// fit; a dropped drag only merges two swipe segments into one straight segment.
+public class InputQueue {
+    public static final byte PRESS = 0;     // mouse pressed: swipe starts
+    public static final byte DRAG = 1;      // mouse dragged: swipe moves
+    public static final byte RELEASE = 2;   // mouse released: swipe ends
+    public static final byte RESTART = 3;   // Restart button: start a new game
+    private static final int RESERVED_SLOTS = 8; // kept free of drags for the other event types
+
+    // Receives drained records on the consumer thread
+    public interface Handler {
+        void handle(byte type, int x, int y, long timeMillis);
+    }
+
+    private final int mask;
+    private final byte[] types;
+    private final int[] xs;
+    private final int[] ys;
+    private final long[] times;
+    private final AtomicLong head = new AtomicLong();  // next record to read; written by the consumer
+    private final AtomicLong tail = new AtomicLong();  // next slot to write; written by the producer
+    private long cachedHead;                            // producer's last view of head
+    private volatile long dropped;                      // records refused because the ring was full
+
+    // capacity is rounded up to a power of two
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(RESERVED_SLOTS * 2, capacity - 1)) << 1;
+        mask = size - 1;
+        types = new byte[size];
+        xs = new int[size];
+        ys = new int[size];
+        times = new long[size];
+    }
+
+    // Producer side; returns false (and counts the record as dropped) if there is no room
+    public boolean offer(byte type, int x, int y, long timeMillis) {
+        long t = tail.get();
+        long limit = type == DRAG ? mask + 1 - RESERVED_SLOTS : mask + 1;
+        if (t - cachedHead >= limit) {
+            cachedHead = head.get();
+            if (t - cachedHead >= limit) {
+                dropped++;
+                return false;
+            }
+        }
+        int i = (int) t & mask;
+        types[i] = type;
+        xs[i] = x;
+        ys[i] = y;
+        times[i] = timeMillis;
+        tail.lazySet(t + 1); // publish the record
+        return true;
+    }
+
+    // Consumer side: hand every record offered so far to handler, oldest first; returns how many
+    public int drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        for (long k = h; k < t; k++) {
+            int i = (int) k & mask;
+            handler.handle(types[i], xs[i], ys[i], times[i]);
+        }
+        head.lazySet(t); // hand the slots back to the producer
+        return (int) (t - h);
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.Arrays;
+
+// Log-linear histogram of durations in nanoseconds, in the style of HdrHistogram: values below 64
+// have their own bucket, above that every power of two is split into 32 sub-buckets, so any value
+// is reported within ~3% using a fixed 1024-slot array. Plain (single-threaded) snapshot of a
+// LatencyRecorder interval; also usable on its own.
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;       // 32 sub-buckets per power of two
+    static final int BUCKETS = 1024;                           // covers values up to ~2^35 ns (34 s)
+
+    private final long[] counts = new long[BUCKETS];
+    private long totalCount;
+    private long max;
+
+    // Bucket holding value (values past the last bucket are clamped into it)
+    static int bucketIndex(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int index = (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+        return Math.min(BUCKETS - 1, index);
+    }
+
+    // Smallest value that falls into bucket index
+    static long bucketLowerBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    // Largest value that falls into bucket index
+    static long bucketUpperBound(int index) {
+        return index + 1 < BUCKETS ? bucketLowerBound(index + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    public void record(long value) {
+        add(bucketIndex(value), 1);
+    }
+
+    void add(int index, long count) {
+        counts[index] += count;
+        totalCount += count;
+        if (count > 0) {
+            max = Math.max(max, bucketUpperBound(index));
+        }
+    }
+
+    // Add every value recorded in other (e.g. to sum intervals into a longer period)
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (other.counts[i] != 0) {
+                add(i, other.counts[i]);
+            }
+        }
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        max = 0;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    // Upper bound of the bucket holding the largest recorded value (0 when empty)
+    public long getMax() {
+        return max;
+    }
+
+    // Value at or below which the given fraction (0..1) of recorded values fall, to bucket precision
+    public long getValueAtPercentile(double fraction) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,22 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free recording side of a LatencyHistogram: any thread may record (one atomic increment,
+// no allocation), and a reader periodically moves the counts accumulated since the last drain
+// into a plain histogram. A value recorded during a drain lands in either that interval or the next.
+public class LatencyRecorder {
+    private final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKETS);
+
+    public void record(long nanos) {
+        counts.getAndIncrement(LatencyHistogram.bucketIndex(nanos));
+    }
+
+    // Reset interval to the values recorded since the previous drain
+    public void drainInto(LatencyHistogram interval) {
+        interval.reset();
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            if (counts.get(i) != 0) {
+                interval.add(i, counts.getAndSet(i, 0));
+            }
+        }
+    }
+}
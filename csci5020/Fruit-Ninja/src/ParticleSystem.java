@@ -0,0 +1,240 @@
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Random;
+
+// Juice drops, fragments, sparks and smoke thrown off sliced objects. Particles live in
+// fixed-capacity parallel primitive arrays (position, velocity, life, color index, size) like
+// EntityStore: emitting fills free slots, expired particles are swap-removed in the same single
+// pass that moves them, and nothing is allocated after construction. When the pool is full new
+// particles are dropped. Particles fall with GameSimulation.GRAVITY and move and age at the
+// PARTICLES time scale (TimeScale), so slow motion slows them too.
+//
+// Drawing is batched: every particle is written straight into the pixels of one ARGB layer
+// image, then the part of the layer they cover goes to the screen in a single drawImage call.
+// The number of particles per slice follows the emission scale (lowered by QualityGovernor).
+// Purely visual, with its own Random, so the game's random sequence and replays are unaffected.
+public class ParticleSystem {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int FADE_TICKS = 20;   // particles fade out over their last FADE_TICKS ticks
+    private static final int MAX_SIZE = 4;      // largest particle, in pixels
+
+    // Palette (RGB); particles store an index into it
+    private static final byte RED = 0, ORANGE = 1, YELLOW = 2, SMOKE = 3, SPARK = 4, PINK = 5, CYAN = 6, WHITE = 7;
+    private static final int[] PALETTE = {
+        0xE01818, 0xFF9A1A, 0xFFE838, 0x606060, 0xFFC848, 0xFFAFAF, 0x40F0FF, 0xFFFFFF
+    };
+    private static final byte[] FRUIT_COLORS = { RED, ORANGE, YELLOW };   // by FruitType ordinal
+    private static final byte[] BONUS_COLORS = { PINK, CYAN };            // by BonusType ordinal
+
+    private final int width, height;
+    private final float[] x, y;      // current positions
+    private final float[] px, py;    // positions before the last update, for interpolated drawing
+    private final float[] vx, vy;    // velocity, pixels per tick
+    private final float[] life;      // ticks left
+    private final byte[] color;      // palette index
+    private final byte[] size;       // square side in pixels
+    private int count;               // live particles [0, count)
+    private long dropped;            // particles not emitted because the pool was full
+    private double emissionScale = 1.0; // fraction of each slice burst that is emitted
+    private final Random rand;
+
+    // Box around every particle's previous, current and next position after the last update
+    private int boundsX0, boundsY0, boundsX1, boundsY1;
+
+    // Layer the particles are drawn into, and the box drawn last frame (cleared before the next)
+    private BufferedImage layer;
+    private int[] pixels;
+    private int drawnX0, drawnY0, drawnX1, drawnY1;
+
+    public ParticleSystem(int capacity, int width, int height, long seed) {
+        this.width = width;
+        this.height = height;
+        x = new float[capacity];
+        y = new float[capacity];
+        px = new float[capacity];
+        py = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        life = new float[capacity];
+        color = new byte[capacity];
+        size = new byte[capacity];
+        rand = new Random(seed);
+    }
+
+    // Burst for an object sliced at (ox, oy) moving at (ovx, ovy) by a blade moving along (dx, dy)
+    public void emitSlice(byte kind, int type, double ox, double oy, double ovx, double ovy, double dx, double dy) {
+        // Debris keeps part of the object's motion and is flung a little along the blade
+        double length = Math.sqrt(dx * dx + dy * dy);
+        double pushX = ovx * 0.5, pushY = ovy * 0.5;
+        if (length > 0) {
+            pushX += dx / length * 2;
+            pushY += dy / length * 2;
+        }
+        if (kind == EntityStore.KIND_FRUIT) {
+            emit(scaled(32), ox, oy, pushX, pushY, 5, FRUIT_COLORS[type], 2, 45);   // juice
+            emit(scaled(6), ox, oy, pushX, pushY, 2.5, FRUIT_COLORS[type], 4, 60);  // pulp
+        } else if (kind == EntityStore.KIND_BOMB) {
+            emit(scaled(48), ox, oy, 0, -1, 8, SPARK, 2, 25);
+            emit(scaled(20), ox, oy, 0, -2, 2, SMOKE, 4, 50);
+        } else {
+            emit(scaled(28), ox, oy, pushX, pushY, 4, BONUS_COLORS[type], 2, 45);
+            emit(scaled(12), ox, oy, 0, -1, 6, WHITE, 2, 30);
+        }
+    }
+
+    // Burst size at the current emission scale, at least one particle
+    private int scaled(int n) {
+        return Math.max(1, (int) (n * emissionScale));
+    }
+
+    // Fraction of the particles of each slice burst to emit, 0 to 1
+    public void setEmissionScale(double scale) {
+        emissionScale = scale;
+    }
+
+    // Emit n particles of one color and size at (ox, oy): velocity (bvx, bvy) plus a random
+    // direction at up to speed, living about lifeTicks ticks
+    public void emit(int n, double ox, double oy, double bvx, double bvy, double speed, byte colorIndex,
+            int particleSize, int lifeTicks) {
+        for (int k = 0; k < n; k++) {
+            if (count == x.length) {
+                dropped += n - k;
+                return;
+            }
+            double angle = rand.nextDouble() * 2 * Math.PI;
+            double s = speed * (0.3 + 0.7 * rand.nextDouble());
+            int i = count++;
+            x[i] = (float) ox;
+            y[i] = (float) oy;
+            px[i] = x[i];
+            py[i] = y[i];
+            vx[i] = (float) (bvx + Math.cos(angle) * s);
+            vy[i] = (float) (bvy + Math.sin(angle) * s);
+            life[i] = lifeTicks * (0.6f + 0.4f * rand.nextFloat());
+            color[i] = colorIndex;
+            size[i] = (byte) particleSize;
+        }
+    }
+
+    // Move, age and cull every particle in one pass (called once per tick)
+    public void update(double speedFactor) {
+        float speed = (float) speedFactor;
+        float gravity = (float) (GameSimulation.GRAVITY * speedFactor);
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        int i = 0;
+        while (i < count) {
+            float left = life[i] - speed;
+            float nx = x[i] + vx[i] * speed;
+            float ny = y[i] + vy[i] * speed;
+            if (left <= 0 || ny > height + MAX_SIZE || nx < -MAX_SIZE || nx > width + MAX_SIZE) {
+                // Swap the last particle in; it has not been updated yet, so stay on i
+                remove(i);
+                continue;
+            }
+            px[i] = x[i];
+            py[i] = y[i];
+            x[i] = nx;
+            y[i] = ny;
+            vy[i] += gravity;
+            life[i] = left;
+            // Cover where it was, where it is and where the next tick moves it (see GamePanel.render)
+            float ahead = nx + vx[i] * speed;
+            float below = ny + vy[i] * speed;
+            minX = Math.min(minX, Math.min(px[i], Math.min(nx, ahead)));
+            maxX = Math.max(maxX, Math.max(px[i], Math.max(nx, ahead)));
+            minY = Math.min(minY, Math.min(py[i], Math.min(ny, below)));
+            maxY = Math.max(maxY, Math.max(py[i], Math.max(ny, below)));
+            i++;
+        }
+        if (count == 0) {
+            boundsX0 = boundsY0 = boundsX1 = boundsY1 = 0;
+        } else {
+            boundsX0 = (int) minX - MAX_SIZE;
+            boundsY0 = (int) minY - MAX_SIZE;
+            boundsX1 = (int) maxX + MAX_SIZE + 1;
+            boundsY1 = (int) maxY + MAX_SIZE + 1;
+        }
+    }
+
+    private void remove(int i) {
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        px[i] = px[last];
+        py[i] = py[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        life[i] = life[last];
+        color[i] = color[last];
+        size[i] = size[last];
+    }
+
+    public void clear() {
+        count = 0;
+        boundsX0 = boundsY0 = boundsX1 = boundsY1 = 0;
+    }
+
+    // Draw every particle, interpolated between the last two updates by alpha
+    public void draw(Graphics g, double alpha) {
+        if (layer == null) {
+            layer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            pixels = ((DataBufferInt) layer.getRaster().getDataBuffer()).getData();
+        }
+        for (int row = drawnY0; row < drawnY1; row++) {
+            Arrays.fill(pixels, row * width + drawnX0, row * width + drawnX1, 0);
+        }
+        int x0 = width, y0 = height, x1 = 0, y1 = 0;
+        float a = (float) alpha;
+        for (int i = 0; i < count; i++) {
+            int s = size[i];
+            int left = (int) (px[i] + (x[i] - px[i]) * a) - (s >> 1);
+            int top = (int) (py[i] + (y[i] - py[i]) * a) - (s >> 1);
+            int right = Math.min(left + s, width);
+            int bottom = Math.min(top + s, height);
+            left = Math.max(left, 0);
+            top = Math.max(top, 0);
+            if (left >= right || top >= bottom) {
+                continue;
+            }
+            int opacity = life[i] >= FADE_TICKS ? 255 : (int) (life[i] * (255f / FADE_TICKS));
+            int argb = opacity << 24 | PALETTE[color[i]];
+            for (int row = top; row < bottom; row++) {
+                int p = row * width;
+                for (int col = left; col < right; col++) {
+                    pixels[p + col] = argb;
+                }
+            }
+            x0 = Math.min(x0, left);
+            y0 = Math.min(y0, top);
+            x1 = Math.max(x1, right);
+            y1 = Math.max(y1, bottom);
+        }
+        if (x0 >= x1) {
+            drawnX0 = drawnY0 = drawnX1 = drawnY1 = 0;
+            return;
+        }
+        drawnX0 = x0;
+        drawnY0 = y0;
+        drawnX1 = x1;
+        drawnY1 = y1;
+        g.drawImage(layer, x0, y0, x1, y1, x0, y0, x1, y1, null);
+    }
+
+    // Add the area the particles cover between the last update and the next one
+    public void addDamage(DamageRegion region) {
+        if (count > 0) {
+            region.add(boundsX0, boundsY0, boundsX1, boundsY1);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,170 @@
+import java.util.Locale;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Keeps frames inside their budget (one display refresh period) by trading visual quality for
+// time. The game loop reports the work of every frame (ticks plus rendering and painting); over
+// each window of WINDOW_FRAMES frames the average is compared with the budget:
+//
+//   above DOWNGRADE_LOAD of the budget for DOWNGRADE_WINDOWS windows in a row  -> one level down
+//   below UPGRADE_LOAD of the budget for UPGRADE_WINDOWS windows in a row      -> one level up
+//
+// The gap between the two loads and the longer wait before upgrading are the hysteresis: a level
+// that was too slow is only restored after a sustained stretch of clear headroom, so the quality
+// does not flip back and forth around the threshold. Each level drops one more cost lever (see
+// LEVEL_NAMES and the is... methods). Every transition is emitted as a JFR event with the load
+// that caused it, for tuning the thresholds.
+//
+// -Dfruitninja.quality=<level> pins the level (0 = full quality) and turns the governor off.
+// -Dfruitninja.quality.log=true also prints every transition to standard output.
+public class QualityGovernor {
+    public static final int FULL = 0;                    // antialiased trail and sprites, full trail, outlines, all particles
+    public static final int NO_ANTIALIASING = 1;         // trail and sprite edges drawn without antialiasing
+    public static final int SHORT_TRAIL = 2;             // trail kept for half as long
+    public static final int NO_OUTLINES = 3;             // fruit drawn without their black outline
+    public static final int FEW_PARTICLES = 4;           // a quarter of the particles per slice
+    public static final int HARD_SPRITES = 5;            // sprites with 1-bit transparency, blitted without blending
+    public static final int LEVELS = 6;
+    private static final String[] LEVEL_NAMES = {
+        "full", "no antialiasing", "short trail", "no outlines", "few particles", "hard-edged sprites"
+    };
+
+    private static final int WINDOW_FRAMES = 30;         // frames averaged per decision (half a second at 60 Hz)
+    private static final double DOWNGRADE_LOAD = 0.85;   // fraction of the budget that counts as over
+    private static final double UPGRADE_LOAD = 0.5;      // fraction of the budget that counts as headroom
+    private static final int DOWNGRADE_WINDOWS = 2;
+    private static final int UPGRADE_WINDOWS = 8;
+    private static final boolean LOG = Boolean.getBoolean("fruitninja.quality.log");
+
+    // Emitted on every level change
+    @Name("fruitninja.QualityChange")
+    @Label("Quality Level Change")
+    @Category("Fruit Ninja")
+    @StackTrace(false)
+    static class QualityChangeEvent extends Event {
+        @Label("From Level")
+        int from;
+
+        @Label("To Level")
+        int to;
+
+        @Label("Average Frame Work")
+        @Timespan(Timespan.NANOSECONDS)
+        long frameWork;
+
+        @Label("Frame Budget")
+        @Timespan(Timespan.NANOSECONDS)
+        long budget;
+    }
+
+    private final long budgetNanos;
+    private final boolean fixed;          // level pinned by -Dfruitninja.quality
+    private volatile int level;
+
+    // Current window and streaks; only touched by the game loop thread
+    private long windowNanos;
+    private int windowFrames;
+    private int overStreak;
+    private int headroomStreak;
+
+    public QualityGovernor(int framesPerSecond) {
+        budgetNanos = 1_000_000_000L / framesPerSecond;
+        int pinned = pinnedLevel(System.getProperty("fruitninja.quality"));
+        fixed = pinned >= 0;
+        level = fixed ? pinned : FULL;
+    }
+
+    // Level named by -Dfruitninja.quality, or -1 to adapt (not set, "auto" or not a number)
+    private static int pinnedLevel(String value) {
+        if (value == null || value.isEmpty() || value.equals("auto")) {
+            return -1;
+        }
+        try {
+            return Math.max(FULL, Math.min(LEVELS - 1, Integer.parseInt(value.trim())));
+        } catch (NumberFormatException e) {
+            System.err.println("Unknown fruitninja.quality level " + value + "; adapting to the frame budget");
+            return -1;
+        }
+    }
+
+    // Called by the game loop after each frame with the time spent on it
+    public void recordFrame(long workNanos) {
+        if (fixed) {
+            return;
+        }
+        windowNanos += workNanos;
+        if (++windowFrames < WINDOW_FRAMES) {
+            return;
+        }
+        long average = windowNanos / windowFrames;
+        windowNanos = 0;
+        windowFrames = 0;
+        if (average > budgetNanos * DOWNGRADE_LOAD) {
+            headroomStreak = 0;
+            if (++overStreak >= DOWNGRADE_WINDOWS && level < LEVELS - 1) {
+                change(level + 1, average);
+            }
+        } else if (average < budgetNanos * UPGRADE_LOAD) {
+            overStreak = 0;
+            if (++headroomStreak >= UPGRADE_WINDOWS && level > FULL) {
+                change(level - 1, average);
+            }
+        } else {
+            // Inside the band: keep the level and start both counts again
+            overStreak = 0;
+            headroomStreak = 0;
+        }
+    }
+
+    private void change(int to, long average) {
+        int from = level;
+        level = to;
+        overStreak = 0;
+        headroomStreak = 0;
+        if (LOG) {
+            System.out.println(String.format(Locale.ROOT, "Quality %d -> %d (%s): frame work %.2f ms of %.2f ms budget",
+                    from, to, LEVEL_NAMES[to], average / 1e6, budgetNanos / 1e6));
+        }
+        // As in FrameMetrics.recordTick: no event objects until JFR is in use
+        if (FlightRecorder.isInitialized()) {
+            QualityChangeEvent event = new QualityChangeEvent();
+            if (event.shouldCommit()) {
+                event.from = from;
+                event.to = to;
+                event.frameWork = average;
+                event.budget = budgetNanos;
+                event.commit();
+            }
+        }
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public static String getLevelName(int level) {
+        return LEVEL_NAMES[level];
+    }
+
+    // Cost levers at a level; each stays off from its level down
+    public static boolean isAntialiased(int level) {
+        return level < NO_ANTIALIASING;
+    }
+    public static boolean isShortTrail(int level) {
+        return level >= SHORT_TRAIL;
+    }
+    public static boolean hasOutlines(int level) {
+        return level < NO_OUTLINES;
+    }
+    public static double getParticleScale(int level) {
+        return level >= FEW_PARTICLES ? 0.25 : 1.0;
+    }
+    public static boolean isHardSprites(int level) {
+        return level >= HARD_SPRITES;
+    }
+}
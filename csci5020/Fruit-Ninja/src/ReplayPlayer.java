@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Feeds a recorded replay (see ReplayRecorder for the format) back into a GameSimulation created
+// with the recorded seed: before each tick, every event recorded for that tick is applied in order.
+// The scores stored with RESET and END events are compared with the replayed game, so a replay
+// doubles as a regression test for the game rules.
+public class ReplayPlayer implements GameSimulation.Input {
+    private final ByteBuffer data;
+    private final long seed;
+
+    // The next undecoded event
+    private boolean hasNext;
+    private long nextTick;
+    private int nextType;
+    private int nextX, nextY;      // swipe position (PRESS, DRAG)
+    private int nextScore;         // recorded score (RESET, END)
+
+    private int gamesChecked;
+    private int mismatches;
+
+    private ReplayPlayer(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.remaining() < 13 || data.getInt() != ReplayRecorder.MAGIC) {
+            throw new IOException("not a replay file");
+        }
+        byte version = data.get();
+        if (version != ReplayRecorder.VERSION) {
+            throw new IOException("unsupported replay version " + version);
+        }
+        seed = data.getLong();
+        readNext();
+    }
+
+    public static ReplayPlayer open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // keep reading
+            }
+            data.flip();
+            return new ReplayPlayer(data);
+        }
+    }
+
+    // Seed to create the GameSimulation with
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public void beforeTick(GameSimulation simulation) {
+        while (hasNext && nextTick <= simulation.getTickCount()) {
+            apply(simulation);
+            readNext();
+        }
+    }
+
+    private void apply(GameSimulation simulation) {
+        switch (nextType) {
+            case ReplayRecorder.PRESS:
+                simulation.swipeStart(nextX, nextY);
+                break;
+            case ReplayRecorder.DRAG:
+                simulation.swipeMove(nextX, nextY);
+                break;
+            case ReplayRecorder.RELEASE:
+                simulation.swipeEnd();
+                break;
+            case ReplayRecorder.RESET:
+                check(simulation);
+                simulation.reset();
+                nextTick = 0;
+                break;
+            case ReplayRecorder.END:
+                check(simulation);
+                break;
+            default:
+                throw new IllegalStateException("unknown replay event " + nextType);
+        }
+    }
+
+    private void check(GameSimulation simulation) {
+        gamesChecked++;
+        if (simulation.getScore() != nextScore) {
+            mismatches++;
+            System.err.printf("Replay diverged: game %d scored %d, recorded %d%n",
+                    gamesChecked, simulation.getScore(), nextScore);
+        }
+    }
+
+    private void readNext() {
+        // END is the last event; a recording cut short (crash, kill) simply runs out of events
+        if (hasNext && nextType == ReplayRecorder.END || !data.hasRemaining()) {
+            hasNext = false;
+            return;
+        }
+        long header = getVarLong();
+        nextTick += header >>> ReplayRecorder.TYPE_BITS;
+        nextType = (int) (header & ((1 << ReplayRecorder.TYPE_BITS) - 1));
+        if (nextType == ReplayRecorder.PRESS || nextType == ReplayRecorder.DRAG) {
+            nextX += (int) unzigzag(getVarLong());
+            nextY += (int) unzigzag(getVarLong());
+        } else if (nextType == ReplayRecorder.RESET || nextType == ReplayRecorder.END) {
+            nextScore = (int) getVarLong();
+        }
+        hasNext = true;
+    }
+
+    private long getVarLong() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // True once every recorded event has been applied
+    public boolean isFinished() {
+        return !hasNext;
+    }
+
+    // The game is over but the next event belongs to a later tick: the replay no longer matches the rules
+    public boolean isStuck(GameSimulation simulation) {
+        return hasNext && simulation.isGameOver() && nextTick > simulation.getTickCount();
+    }
+
+    public int getGamesChecked() {
+        return gamesChecked;
+    }
+
+    public int getMismatches() {
+        return mismatches;
+    }
+}
@@ -0,0 +1,146 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Writes a replay: the game seed followed by every swipe event, keyed by the simulation tick it was
+// applied before. With the seed, those events and the same wave table GameSimulation plays out
+// exactly the same game (see ReplayPlayer). Events are written through a buffered FileChannel
+// in a compact form:
+//
+//   header:  int magic "FNRP", byte version, long seed
+//   event:   varint (tickDelta << 3 | type), then
+//              PRESS, DRAG      zigzag varint dx, dy from the previous swipe position
+//              RESET, END       varint score of the game that just ended (checked on replay)
+//
+// A drag within the same tick and a few pixels from the last one takes 3 bytes, so a minute of
+// play is a few KB. An I/O error stops the recording (reported once) but never the game.
+public class ReplayRecorder {
+    static final int MAGIC = 0x464E5250;   // "FNRP"
+    static final byte VERSION = 3;     // 2: spawns drawn from WaveTable launch tables, 3: eased slow motion
+    static final int TYPE_BITS = 3;
+    static final int PRESS = 0;            // swipe started
+    static final int DRAG = 1;             // swipe moved
+    static final int RELEASE = 2;          // swipe ended
+    static final int RESET = 3;            // game restarted; tick numbers start again from 0
+    static final int END = 4;              // recording finished
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_EVENT_BYTES = 3 * 10; // three varints of at most 10 bytes
+
+    private final Path path;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private FileChannel channel;           // null once closed or failed
+    private long lastTick;
+    private int lastX, lastY;
+
+    public ReplayRecorder(Path path, long seed) throws IOException {
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).put(VERSION).putLong(seed);
+    }
+
+    public void press(long tick, int x, int y) {
+        if (event(tick, PRESS)) {
+            position(x, y);
+        }
+    }
+
+    public void drag(long tick, int x, int y) {
+        if (event(tick, DRAG)) {
+            position(x, y);
+        }
+    }
+
+    public void release(long tick) {
+        event(tick, RELEASE);
+    }
+
+    // The game that ended with score is being restarted
+    public void reset(long tick, int score) {
+        if (event(tick, RESET)) {
+            putVarLong(score);
+            lastTick = 0;
+        }
+    }
+
+    // Write everything buffered so far to the file
+    public void flush() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // Finish the recording; score is the current game's score at this tick
+    public void close(long tick, int score) {
+        if (event(tick, END)) {
+            putVarLong(score);
+        }
+        flush();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+            channel = null;
+        }
+    }
+
+    // Start an event; false if the recording has stopped
+    private boolean event(long tick, int type) {
+        if (channel == null) {
+            return false;
+        }
+        if (buffer.remaining() < MAX_EVENT_BYTES) {
+            flush();
+            if (channel == null) {
+                return false;
+            }
+        }
+        putVarLong((tick - lastTick) << TYPE_BITS | type);
+        lastTick = tick;
+        return true;
+    }
+
+    private void position(int x, int y) {
+        putVarLong(zigzag(x - lastX));
+        putVarLong(zigzag(y - lastY));
+        lastX = x;
+        lastY = y;
+    }
+
+    // Unsigned LEB128: 7 bits per byte, high bit set on all but the last byte
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    // Small negative and positive deltas both become small unsigned values
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void fail(IOException e) {
+        System.err.println("Replay recording to " + path + " stopped: " + e);
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // already failing
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,51 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Plays a recorded replay headless at full speed and checks the recorded scores; exits with 1 when
+// the replay no longer matches the game rules. Repeating the replay gives a steady tick rate for
+// performance comparisons.
+//
+// Record:  java -Dfruitninja.record=game.fnr FruitNinjaGame
+// Replay:  java ReplayRunner game.fnr [repeat]
+public class ReplayRunner {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java ReplayRunner <replay file> [repeat]");
+            System.exit(2);
+        }
+        Path path = Paths.get(args[0]);
+        int repeat = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        long ticks = 0;
+        boolean failed = false;
+        long start = System.nanoTime();
+        for (int run = 0; run < repeat && !failed; run++) {
+            ReplayPlayer player = ReplayPlayer.open(path);
+            GameSimulation simulation = new GameSimulation(player.getSeed());
+            while (!player.isFinished()) {
+                simulation.step(player);
+                ticks++;
+                if (player.isStuck(simulation)) {
+                    System.err.printf("Replay diverged: game over at tick %d with events still to come%n",
+                            simulation.getTickCount());
+                    failed = true;
+                    break;
+                }
+            }
+            failed |= player.getMismatches() > 0;
+            if (run == 0) {
+                System.out.printf("%s: seed %d, %d games checked, final score %d after %d ticks%n",
+                        path, player.getSeed(), player.getGamesChecked(), simulation.getScore(),
+                        simulation.getTickCount());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d run(s), %d ticks in %.3f s: %.2fM ticks/s (%.0fx real time)%n",
+                repeat, ticks, seconds, ticks / seconds / 1e6,
+                ticks / (double) GameLoop.TICKS_PER_SECOND / seconds);
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,426 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+// High scores and per-game statistics (score, duration, combos, fruits sliced) kept across runs.
+//
+// Finished games go into an in-memory index at once (top TOP_N scores and lifetime totals), so
+// the game over screen never waits for the disk; a background writer thread then appends them
+// to a memory-mapped log of fixed-size records:
+//
+//   header:  int magic "FNSC", int version, int record size, int reserved
+//   record:  int CRC-32 of the rest, int type, five longs
+//              SESSION   end time (epoch ms), duration ms, score, fruits sliced, combos
+//              SUMMARY   games, duration ms, score, fruits sliced, combos: totals of dropped games
+//
+// The checksum is written last. On startup the log is read up to the first record whose checksum
+// does not match, which is where a crash or power loss cut the last append short; the next append
+// overwrites it. Once the log reaches COMPACT_RECORDS records the writer rewrites it to a new file
+// holding one SUMMARY, the top TOP_N games and the last KEEP_RECENT games, then renames it over the
+// old one, so the log (and the startup scan) stays small however long the history gets.
+// An I/O error stops writing (reported once); scores are still kept for the rest of the run.
+public class ScoreStore {
+    static final int MAGIC = 0x464E5343;     // "FNSC"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 48;
+    static final int SESSION = 1;            // one finished game
+    static final int SUMMARY = 2;            // totals of the games compaction dropped
+    public static final int TOP_N = 10;
+    static final int COMPACT_RECORDS = 4096; // log size that triggers compaction
+    static final int KEEP_RECENT = 1000;     // games compaction keeps besides the top TOP_N
+    private static final int GROWTH_RECORDS = 1024; // the mapping grows by this many records
+
+    // One finished game
+    public static final class Session {
+        final long endMillis;
+        final long durationMillis;
+        final int score;
+        final int slices;
+        final int combos;
+
+        Session(long endMillis, long durationMillis, int score, int slices, int combos) {
+            this.endMillis = endMillis;
+            this.durationMillis = durationMillis;
+            this.score = score;
+            this.slices = slices;
+            this.combos = combos;
+        }
+
+        public long getEndMillis() {
+            return endMillis;
+        }
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+        public int getScore() {
+            return score;
+        }
+        public int getSlices() {
+            return slices;
+        }
+        public int getCombos() {
+            return combos;
+        }
+    }
+
+    private static final Session STOP = new Session(0, 0, 0, 0, 0); // queued by close()
+
+    private final Path path;                 // null when kept in memory only
+    private final BlockingQueue<Session> pending = new LinkedBlockingQueue<Session>();
+    private volatile Thread writer;          // null when not writing
+
+    // In-memory index; top is replaced (never modified) when it changes
+    private volatile Session[] top = new Session[0];   // best scores first, earlier game first on ties
+    private long games, totalMillis, totalScore, totalSlices, totalCombos; // guarded by this
+
+    // The log; after the constructor only the writer thread touches it
+    private FileChannel channel;             // null when not writing
+    private MappedByteBuffer map;
+    private int records;                     // valid records in the log
+    private final CRC32 crc = new CRC32();
+    private final byte[] scratch = new byte[RECORD_SIZE - 4];
+
+    // Load the log at path (created if missing) and start the writer; null keeps scores in memory only
+    public ScoreStore(Path path) {
+        this.path = path;
+        if (path == null) {
+            return;
+        }
+        try {
+            openLog();
+            if (records >= COMPACT_RECORDS) {
+                compact();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            fail(e);
+            return;
+        }
+        writer = new Thread(new Runnable() {
+            public void run() {
+                write();
+            }
+        }, "score-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Log named by -Dfruitninja.scores, by default .fruitninja/scores.log in the user's home directory
+    public static Path defaultPath() {
+        String path = System.getProperty("fruitninja.scores");
+        if (path != null && !path.isEmpty()) {
+            return Paths.get(path);
+        }
+        return Paths.get(System.getProperty("user.home"), ".fruitninja", "scores.log");
+    }
+
+    // Record a finished game; returns at once, the log is written in the background
+    public void submit(int score, long durationMillis, int slices, int combos) {
+        Session session = new Session(System.currentTimeMillis(), durationMillis, score, slices, combos);
+        synchronized (this) {
+            index(session);
+        }
+        if (writer != null) {
+            pending.offer(session);
+        }
+    }
+
+    // Write out everything submitted so far and stop the writer (waits at most timeoutMillis)
+    public void close(long timeoutMillis) {
+        if (writer == null) {
+            return;
+        }
+        pending.offer(STOP);
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getHighScore() {
+        Session[] best = top;
+        return best.length > 0 ? best[0].score : 0;
+    }
+
+    // Best games, highest score first; the array is shared, do not modify
+    public Session[] getTopScores() {
+        return top;
+    }
+
+    public synchronized long getGamesPlayed() {
+        return games;
+    }
+    public synchronized long getTotalMillis() {
+        return totalMillis;
+    }
+    public synchronized long getTotalScore() {
+        return totalScore;
+    }
+    public synchronized long getTotalSlices() {
+        return totalSlices;
+    }
+    public synchronized long getTotalCombos() {
+        return totalCombos;
+    }
+
+    // Add one game to the index; caller holds the lock (or is the constructor)
+    private void index(Session session) {
+        games++;
+        totalMillis += session.durationMillis;
+        totalScore += session.score;
+        totalSlices += session.slices;
+        totalCombos += session.combos;
+        Session[] best = top;
+        int rank = best.length;
+        while (rank > 0 && best[rank - 1].score < session.score) {
+            rank--;
+        }
+        if (rank >= TOP_N) {
+            return;
+        }
+        Session[] updated = new Session[Math.min(best.length + 1, TOP_N)];
+        System.arraycopy(best, 0, updated, 0, rank);
+        updated[rank] = session;
+        System.arraycopy(best, rank, updated, rank + 1, updated.length - rank - 1);
+        top = updated;
+    }
+
+    private void openLog() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(tempPath()); // left by a compaction that did not finish; the log is intact
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            // New, or a crash cut the header short before any record could be written: start afresh
+            if (size > 0) {
+                System.err.println("Score log " + path + ": header incomplete, starting a new log");
+                channel.truncate(0);
+            }
+            mapRecords(GROWTH_RECORDS);
+            map.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_SIZE).putInt(12, 0);
+            map.force(); // a crash must not leave a file without its header
+            records = 0;
+            return;
+        }
+        mapRecords((int) ((size - HEADER_SIZE) / RECORD_SIZE));
+        if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION || map.getInt(8) != RECORD_SIZE) {
+            channel.close();
+            channel = null;
+            throw new IOException("not a score log");
+        }
+        recover();
+    }
+
+    // Index every valid record, up to the first damaged one
+    private void recover() {
+        int capacity = capacity();
+        int n = 0;
+        while (n < capacity && isValid(map, offset(n))) {
+            int at = offset(n);
+            long a = map.getLong(at + 8), b = map.getLong(at + 16), c = map.getLong(at + 24),
+                    d = map.getLong(at + 32), e = map.getLong(at + 40);
+            if (map.getInt(at + 4) == SUMMARY) {
+                games += a;
+                totalMillis += b;
+                totalScore += c;
+                totalSlices += d;
+                totalCombos += e;
+            } else {
+                index(new Session(a, b, (int) c, (int) d, (int) e));
+            }
+            n++;
+        }
+        records = n;
+        if (n < capacity && map.getInt(offset(n)) != 0) {
+            System.err.println("Score log " + path + ": dropped a damaged record after " + n + " records");
+        }
+    }
+
+    // Writer thread: append submitted games until close()
+    private void write() {
+        while (true) {
+            Session session;
+            try {
+                session = pending.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (session == STOP) {
+                    map.force();
+                    return;
+                }
+                append(session);
+                if (pending.isEmpty()) {
+                    map.force(); // on disk before the writer goes idle
+                }
+                if (records >= COMPACT_RECORDS) {
+                    compact();
+                }
+            } catch (IOException | UncheckedIOException e) {
+                fail(e);
+                writer = null;
+                return;
+            }
+        }
+    }
+
+    private void append(Session session) throws IOException {
+        if (records == capacity()) {
+            mapRecords(records + GROWTH_RECORDS);
+        }
+        putRecord(map, offset(records), SESSION, session.endMillis, session.durationMillis, session.score,
+                session.slices, session.combos);
+        records++;
+    }
+
+    // Rewrite the log as one SUMMARY of the dropped games plus the games worth keeping, in log order
+    private void compact() throws IOException {
+        // The top TOP_N sessions of the log, found the same way index() ranks them
+        int[] best = new int[TOP_N];
+        int bestCount = 0;
+        for (int n = 0; n < records; n++) {
+            int at = offset(n);
+            if (map.getInt(at + 4) != SESSION) {
+                continue;
+            }
+            long score = map.getLong(at + 24);
+            int rank = bestCount;
+            while (rank > 0 && map.getLong(offset(best[rank - 1]) + 24) < score) {
+                rank--;
+            }
+            if (rank < TOP_N) {
+                int moved = Math.min(bestCount, TOP_N - 1) - rank;
+                System.arraycopy(best, rank, best, rank + 1, moved);
+                best[rank] = n;
+                bestCount = Math.min(bestCount + 1, TOP_N);
+            }
+        }
+        boolean[] keep = new boolean[records];
+        for (int k = 0; k < bestCount; k++) {
+            keep[best[k]] = true;
+        }
+        int kept = 0;
+        long[] summary = new long[5];
+        for (int n = 0; n < records; n++) {
+            int at = offset(n);
+            int type = map.getInt(at + 4);
+            if (type == SESSION && (keep[n] || n >= records - KEEP_RECENT)) {
+                keep[n] = true;
+                kept++;
+            } else if (type == SUMMARY) {
+                for (int k = 0; k < 5; k++) {
+                    summary[k] += map.getLong(at + 8 + 8 * k);
+                }
+            } else {
+                summary[0]++;
+                summary[1] += map.getLong(at + 16);
+                summary[2] += map.getLong(at + 24);
+                summary[3] += map.getLong(at + 32);
+                summary[4] += map.getLong(at + 40);
+            }
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + (kept + 1) * RECORD_SIZE);
+        out.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_SIZE).putInt(12, 0);
+        putRecord(out, HEADER_SIZE, SUMMARY, summary[0], summary[1], summary[2], summary[3], summary[4]);
+        int to = HEADER_SIZE + RECORD_SIZE;
+        for (int n = 0; n < records; n++) {
+            if (keep[n]) {
+                map.get(offset(n), out.array(), to, RECORD_SIZE);
+                to += RECORD_SIZE;
+            }
+        }
+        Path temp = tempPath();
+        try (FileChannel compacted = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                compacted.write(out);
+            }
+            compacted.force(true);
+        }
+        // Let go of the old log before replacing it: Windows refuses to rename over a file that is
+        // still open or mapped. Then map the compacted one.
+        channel.close();
+        channel = null;
+        map = null;
+        replaceLog(temp);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        records = kept + 1;
+        mapRecords(records + GROWTH_RECORDS);
+    }
+
+    // Rename temp over the log. A mapping is only released once its buffer is collected, so if the
+    // rename is refused the old mapping is collected and the rename tried once more.
+    private void replaceLog(Path temp) throws IOException {
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.gc();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private Path tempPath() {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    // Map the header and capacity records; the file grows to fit
+    private void mapRecords(int capacity) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+    }
+
+    private int capacity() {
+        return (map.capacity() - HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    private static int offset(int record) {
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    // Fill the record at byte offset at, checksum last so a torn write never looks valid
+    private void putRecord(ByteBuffer buffer, int at, int type, long a, long b, long c, long d, long e) {
+        buffer.putInt(at + 4, type).putLong(at + 8, a).putLong(at + 16, b).putLong(at + 24, c)
+                .putLong(at + 32, d).putLong(at + 40, e);
+        buffer.putInt(at, checksum(buffer, at));
+    }
+
+    private boolean isValid(ByteBuffer buffer, int at) {
+        int type = buffer.getInt(at + 4);
+        return (type == SESSION || type == SUMMARY) && buffer.getInt(at) == checksum(buffer, at);
+    }
+
+    private int checksum(ByteBuffer buffer, int at) {
+        buffer.get(at + 4, scratch);
+        crc.reset();
+        crc.update(scratch);
+        return (int) crc.getValue();
+    }
+
+    private void fail(Exception e) {
+        System.err.println("Score log " + path + " not saved: " + e);
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+            channel = null;
+        }
+    }
+}
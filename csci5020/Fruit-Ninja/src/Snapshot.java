@@ -0,0 +1,141 @@
+import java.util.Arrays;
+
+// What spectators see of one simulation tick: every visible object's id, look (kind and type) and
+// position quantized to 1/POSITION_SCALE of a world unit, plus score, lives and game over.
+// Objects are kept sorted by id, so two snapshots are compared in one merge pass (SnapshotCodec).
+// Parallel primitive arrays reused from tick to tick; they only grow when more objects are on
+// screen than ever before.
+public class Snapshot {
+    public static final int POSITION_SCALE = 8;   // quantization steps per world unit
+    private static final int INITIAL_CAPACITY = 64;
+
+    int tick = -1;          // server sequence number, -1 when empty
+    int score;
+    int lives;
+    boolean gameOver;
+    int count;
+    int[] ids = new int[INITIAL_CAPACITY];
+    int[] xs = new int[INITIAL_CAPACITY];      // positions in 1/POSITION_SCALE world units
+    int[] ys = new int[INITIAL_CAPACITY];
+    byte[] looks = new byte[INITIAL_CAPACITY]; // kind << 4 | type
+
+    // Fill from the simulation's current state (sliced objects are gone for the viewer)
+    public void capture(GameSimulation simulation, int tick) {
+        EntityStore objects = simulation.getObjects();
+        ensureCapacity(objects.size());
+        this.tick = tick;
+        score = simulation.getScore();
+        lives = simulation.getLives();
+        gameOver = simulation.isGameOver();
+        count = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            if (objects.isSliced(i)) {
+                continue;
+            }
+            ids[count] = objects.getId(i);
+            xs[count] = (int) Math.round(objects.getX(i) * POSITION_SCALE);
+            ys[count] = (int) Math.round(objects.getY(i) * POSITION_SCALE);
+            looks[count] = look(objects.getKind(i), objects.getType(i));
+            count++;
+        }
+        sortById();
+    }
+
+    // Swap-removal only moves the newest objects into holes, so the store is nearly in id order
+    // and an insertion sort is close to linear
+    private void sortById() {
+        for (int i = 1; i < count; i++) {
+            int id = ids[i];
+            if (ids[i - 1] <= id) {
+                continue;
+            }
+            int x = xs[i], y = ys[i];
+            byte look = looks[i];
+            int j = i - 1;
+            while (j >= 0 && ids[j] > id) {
+                ids[j + 1] = ids[j];
+                xs[j + 1] = xs[j];
+                ys[j + 1] = ys[j];
+                looks[j + 1] = looks[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            xs[j + 1] = x;
+            ys[j + 1] = y;
+            looks[j + 1] = look;
+        }
+    }
+
+    public void copyFrom(Snapshot other) {
+        ensureCapacity(other.count);
+        tick = other.tick;
+        score = other.score;
+        lives = other.lives;
+        gameOver = other.gameOver;
+        count = other.count;
+        System.arraycopy(other.ids, 0, ids, 0, count);
+        System.arraycopy(other.xs, 0, xs, 0, count);
+        System.arraycopy(other.ys, 0, ys, 0, count);
+        System.arraycopy(other.looks, 0, looks, 0, count);
+    }
+
+    void ensureCapacity(int n) {
+        if (n > ids.length) {
+            int capacity = Math.max(n, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            looks = Arrays.copyOf(looks, capacity);
+        }
+    }
+
+    static byte look(byte kind, int type) {
+        return (byte) (kind << 4 | type);
+    }
+
+    // True if both hold the same tick with identical contents
+    public boolean sameAs(Snapshot other) {
+        if (tick != other.tick || score != other.score || lives != other.lives || gameOver != other.gameOver
+                || count != other.count) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (ids[i] != other.ids[i] || xs[i] != other.xs[i] || ys[i] != other.ys[i] || looks[i] != other.looks[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+    public int getScore() {
+        return score;
+    }
+    public int getLives() {
+        return lives;
+    }
+    public boolean isGameOver() {
+        return gameOver;
+    }
+    public int getCount() {
+        return count;
+    }
+    public int getId(int i) {
+        return ids[i];
+    }
+    public byte getKind(int i) {
+        return (byte) (looks[i] >> 4);
+    }
+    public int getType(int i) {
+        return looks[i] & 0x0F;
+    }
+    // Position in world units
+    public double getX(int i) {
+        return (double) xs[i] / POSITION_SCALE;
+    }
+    public double getY(int i) {
+        return (double) ys[i] / POSITION_SCALE;
+    }
+}
@@ -0,0 +1,146 @@
+import java.nio.ByteBuffer;
+
+// Wire format between SnapshotServer and SpectatorClient. Every message is framed as
+//
+//   int length (bytes after this field), byte type, body
+//
+//   SNAPSHOT  varint tick, varint (tick - baseline tick, 0 = no baseline), varint score,
+//             byte lives, byte game over, varint object count, then per object in id order:
+//               varint (id - previous id) << 1 | new
+//               new:   byte look, zigzag varint x, y
+//               kept:  zigzag varint dx, dy from the object's position in the baseline
+//   ACK       varint tick of the newest snapshot the client has rebuilt
+//
+// A snapshot is encoded against the newest one the client acknowledged, so an object that is
+// already known costs its id gap and how far it moved since then: typically 4 bytes. Objects
+// missing from the new snapshot are simply not listed. Without a baseline every object is new.
+public final class SnapshotCodec {
+    static final byte SNAPSHOT = 1;
+    static final byte ACK = 2;
+    static final int FRAME_HEADER = 5;                 // length and type
+    private static final int MAX_HEADER_BYTES = 40;    // snapshot fields before the objects
+    private static final int MAX_OBJECT_BYTES = 16;    // id varint, look, two position varints
+
+    private SnapshotCodec() {
+    }
+
+    // Upper bound of the encoded size of a snapshot with count objects
+    static int maxSnapshotBytes(int count) {
+        return FRAME_HEADER + MAX_HEADER_BYTES + count * MAX_OBJECT_BYTES;
+    }
+
+    // Append current, delta-encoded against baseline (null for none), to out; out must have room
+    // for maxSnapshotBytes(current.count)
+    static void writeSnapshot(Snapshot current, Snapshot baseline, ByteBuffer out) {
+        int start = out.position();
+        out.putInt(0).put(SNAPSHOT);
+        putVarInt(out, current.tick);
+        putVarInt(out, baseline == null ? 0 : current.tick - baseline.tick);
+        putVarInt(out, current.score);
+        out.put((byte) current.lives).put((byte) (current.gameOver ? 1 : 0));
+        putVarInt(out, current.count);
+        int previousId = 0;
+        int j = 0;   // merge position in the baseline
+        for (int i = 0; i < current.count; i++) {
+            int id = current.ids[i];
+            if (baseline != null) {
+                while (j < baseline.count && baseline.ids[j] < id) {
+                    j++;
+                }
+            }
+            boolean kept = baseline != null && j < baseline.count && baseline.ids[j] == id;
+            putVarInt(out, (id - previousId) << 1 | (kept ? 0 : 1));
+            previousId = id;
+            if (kept) {
+                putVarInt(out, zigzag(current.xs[i] - baseline.xs[j]));
+                putVarInt(out, zigzag(current.ys[i] - baseline.ys[j]));
+            } else {
+                out.put(current.looks[i]);
+                putVarInt(out, zigzag(current.xs[i]));
+                putVarInt(out, zigzag(current.ys[i]));
+            }
+        }
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    // Read the body of a SNAPSHOT message (after its type byte) into out; baseline is the snapshot
+    // named by readBaselineTick, or null if there is none
+    static void readSnapshot(ByteBuffer in, Snapshot baseline, Snapshot out) {
+        out.tick = getVarInt(in);
+        getVarInt(in);   // baseline distance, already resolved by the caller
+        out.score = getVarInt(in);
+        out.lives = in.get();
+        out.gameOver = in.get() != 0;
+        int count = getVarInt(in);
+        out.ensureCapacity(count);
+        out.count = count;
+        int id = 0;
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            int header = getVarInt(in);
+            id += header >>> 1;
+            out.ids[i] = id;
+            if ((header & 1) != 0) {
+                out.looks[i] = in.get();
+                out.xs[i] = unzigzag(getVarInt(in));
+                out.ys[i] = unzigzag(getVarInt(in));
+            } else {
+                while (baseline != null && j < baseline.count && baseline.ids[j] < id) {
+                    j++;
+                }
+                if (baseline == null || j == baseline.count || baseline.ids[j] != id) {
+                    throw new IllegalStateException("object " + id + " missing from the baseline of tick " + out.tick);
+                }
+                out.looks[i] = baseline.looks[j];
+                out.xs[i] = baseline.xs[j] + unzigzag(getVarInt(in));
+                out.ys[i] = baseline.ys[j] + unzigzag(getVarInt(in));
+            }
+        }
+    }
+
+    // Tick of the baseline a SNAPSHOT body at the buffer's position refers to, or -1 for none;
+    // leaves the position unchanged
+    static int readBaselineTick(ByteBuffer in) {
+        int at = in.position();
+        int tick = getVarInt(in);
+        int distance = getVarInt(in);
+        in.position(at);
+        return distance == 0 ? -1 : tick - distance;
+    }
+
+    static void writeAck(int tick, ByteBuffer out) {
+        int start = out.position();
+        out.putInt(0).put(ACK);
+        putVarInt(out, tick);
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    // Unsigned LEB128: 7 bits per byte, high bit set on all but the last byte
+    static void putVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int getVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    // Small negative and positive deltas both become small unsigned values
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,250 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.function.Consumer;
+
+// Streams the authoritative simulation to spectators (SpectatorClient) over TCP. The game loop
+// calls publish() after every tick: it captures a Snapshot into a ring of the last HISTORY ticks,
+// polls the non-blocking sockets once (new connections, acknowledgements), and sends each client
+// the snapshot delta-encoded against the newest one that client acknowledged (SnapshotCodec).
+// Everything runs on the caller's thread with no locks; a client whose socket cannot take the
+// previous snapshot yet is skipped until it drains, and simply gets a larger delta later.
+// Clients that fall behind the history get a full snapshot. After the first few ticks of a
+// connection nothing is allocated per tick (see SnapshotBenchmark). Anything a client sends that
+// is not a well-formed ACK frame gets it disconnected; it never reaches the game loop.
+//
+// GamePanel starts one with -Dfruitninja.serve=<port>, listening on the loopback interface only,
+// or -Dfruitninja.serve=<address>:<port> (e.g. 0.0.0.0:7070 for every interface).
+public class SnapshotServer {
+    public static final int DEFAULT_PORT = 7070;
+    static final int HISTORY = 64;               // snapshots kept as baselines, about a second
+    private static final int MAX_CLIENTS = 16;   // further connections are closed right away
+    private static final int INPUT_SIZE = 256;   // pending acknowledgements of one client
+
+    private static final class Client {
+        final SocketChannel channel;
+        ByteBuffer out = ByteBuffer.allocateDirect(SnapshotCodec.maxSnapshotBytes(256)); // unsent bytes
+        final ByteBuffer in = ByteBuffer.allocateDirect(INPUT_SIZE);
+        int ackTick = -1;                        // newest snapshot the client has, -1 for none
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+            out.limit(0);
+        }
+    }
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Snapshot[] history = new Snapshot[HISTORY];
+    private final Client[] clients = new Client[MAX_CLIENTS];
+    private int clientCount;
+    private int tick;                            // sequence number of the last published snapshot
+    private long bytesSent;
+    private long snapshotsSent;
+    private long fullSnapshots;
+
+    // Handles one ready key from the selector; made once so polling does not allocate
+    private final Consumer<SelectionKey> readyHandler = new Consumer<SelectionKey>() {
+        public void accept(SelectionKey key) {
+            if (key.isAcceptable()) {
+                acceptClients();
+            } else if (key.isReadable()) {
+                readAcks((Client) key.attachment());
+            }
+        }
+    };
+
+    // Listen on the loopback interface
+    public SnapshotServer(int port) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    public SnapshotServer(InetSocketAddress address) throws IOException {
+        for (int k = 0; k < HISTORY; k++) {
+            history[k] = new Snapshot();
+        }
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    // Port the server listens on (useful when constructed with port 0)
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    // Address the server listens on
+    public String getAddress() {
+        return server.socket().getInetAddress().getHostAddress();
+    }
+
+    // Capture the simulation's state after a tick and send it to every client
+    public void publish(GameSimulation simulation) {
+        tick++;
+        Snapshot current = history[tick % HISTORY];
+        current.capture(simulation, tick);
+        try {
+            selector.selectNow(readyHandler);
+        } catch (IOException e) {
+            System.err.println("Snapshot server polling failed: " + e);
+        }
+        for (int c = 0; c < clientCount; c++) {
+            Client client = clients[c];
+            if (client.out.hasRemaining() && !flush(client)) {
+                continue;
+            }
+            if (!client.out.hasRemaining()) {
+                send(client, current);
+            }
+        }
+        // Drop clients whose connection failed
+        int c = 0;
+        while (c < clientCount) {
+            if (clients[c].channel.isOpen()) {
+                c++;
+            } else {
+                clients[c] = clients[--clientCount];
+                clients[clientCount] = null;
+            }
+        }
+    }
+
+    private void send(Client client, Snapshot current) {
+        Snapshot baseline = getSnapshot(client.ackTick);
+        int needed = SnapshotCodec.maxSnapshotBytes(current.count);
+        if (client.out.capacity() < needed) {
+            client.out = ByteBuffer.allocateDirect(Math.max(needed, client.out.capacity() * 2));
+        }
+        client.out.clear();
+        SnapshotCodec.writeSnapshot(current, baseline, client.out);
+        client.out.flip();
+        snapshotsSent++;
+        if (baseline == null) {
+            fullSnapshots++;
+        }
+        flush(client);
+    }
+
+    // Write what the socket takes now; false if bytes are left (or the client was dropped)
+    private boolean flush(Client client) {
+        try {
+            bytesSent += client.channel.write(client.out);
+        } catch (IOException e) {
+            drop(client);
+            return false;
+        }
+        return !client.out.hasRemaining();
+    }
+
+    // Snapshot of a tick still in the history, or null
+    Snapshot getSnapshot(int tick) {
+        if (tick < 0 || this.tick - tick >= HISTORY) {
+            return null;
+        }
+        Snapshot snapshot = history[tick % HISTORY];
+        return snapshot.tick == tick ? snapshot : null;
+    }
+
+    private void acceptClients() {
+        try {
+            SocketChannel channel;
+            while ((channel = server.accept()) != null) {
+                if (clientCount == MAX_CLIENTS) {
+                    channel.close();
+                    continue;
+                }
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Client client = new Client(channel);
+                channel.register(selector, SelectionKey.OP_READ, client);
+                clients[clientCount++] = client;
+            }
+        } catch (IOException e) {
+            System.err.println("Spectator connection failed: " + e);
+        }
+    }
+
+    // Take the newest acknowledged tick from every complete ACK message
+    private void readAcks(Client client) {
+        ByteBuffer in = client.in;
+        try {
+            if (client.channel.read(in) < 0) {
+                drop(client);
+                return;
+            }
+        } catch (IOException e) {
+            drop(client);
+            return;
+        }
+        in.flip();
+        while (in.remaining() >= SnapshotCodec.FRAME_HEADER) {
+            int length = in.getInt(in.position());
+            if (length < 1 || length > INPUT_SIZE - 4) {
+                drop(client); // not a spectator
+                return;
+            }
+            if (in.remaining() < 4 + length) {
+                break;
+            }
+            int end = in.position() + 4 + length;
+            int limit = in.limit();
+            // Parse within the frame, so a truncated varint cannot run into the next one
+            in.position(in.position() + 4).limit(end);
+            try {
+                if (in.get() == SnapshotCodec.ACK) {
+                    client.ackTick = Math.max(client.ackTick, SnapshotCodec.getVarInt(in));
+                }
+            } catch (BufferUnderflowException e) {
+                drop(client); // not a spectator
+                return;
+            }
+            in.limit(limit).position(end);
+        }
+        in.compact();
+    }
+
+    private void drop(Client client) {
+        try {
+            client.channel.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+    }
+
+    public void close() {
+        try {
+            for (int c = 0; c < clientCount; c++) {
+                clients[c].channel.close();
+            }
+            server.close();
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Snapshot server close failed: " + e);
+        }
+    }
+
+    public int getClientCount() {
+        return clientCount;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent;
+    }
+
+    public long getFullSnapshots() {
+        return fullSnapshots;
+    }
+}
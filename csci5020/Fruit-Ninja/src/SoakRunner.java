@@ -0,0 +1,195 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+// Long unattended run of the real game for finding leaks and slow drift: a GamePanel with its
+// game loop, a BotPlayer feeding its input queue (restarting every game it loses) and frames
+// painted offscreen at 60 Hz, so it runs headless. Once per window it prints tick and paint time
+// percentiles (from FrameMetrics), the worst gaps between painted frames, GC pauses, input
+// records sent and dropped, and the live heap, thread count and direct buffer memory.
+//
+// The live heap is measured right after a System.gc() at each window boundary; its pause shows up
+// as one long frame gap per window. After the first (warm-up) window the heap must not keep
+// growing (least-squares slope over MAX_GROWTH_PER_HOUR with at least MIN_GROWTH gained) and no
+// threads may pile up; otherwise the exit status is 1. Scores go to a temporary log unless
+// -Dfruitninja.scores is set.
+//
+// Usage: java SoakRunner [minutes] [novice|casual|expert|perfect] [events/s] [seed]
+public class SoakRunner {
+    private static final long MAX_GROWTH_PER_HOUR = 8L << 20;  // live heap slope that counts as a leak
+    private static final long MIN_GROWTH = 2L << 20;           // ignore smaller gains on short runs
+    private static final int THREAD_SLACK = 2;                 // e.g. a game loop thread that is just exiting
+    private static final int FRAMES_PER_SECOND = 60;
+
+    private final Object lock = new Object();
+    // Guarded by lock: FrameMetrics intervals summed over the current window and the whole run
+    private final LatencyHistogram windowUpdate = new LatencyHistogram();
+    private final LatencyHistogram windowPaint = new LatencyHistogram();
+    private final LatencyHistogram windowGc = new LatencyHistogram();
+    private final LatencyHistogram totalUpdate = new LatencyHistogram();
+    private final LatencyHistogram totalPaint = new LatencyHistogram();
+    private final LatencyHistogram totalGc = new LatencyHistogram();
+    // Gaps between painted frames (main thread only)
+    private final LatencyHistogram windowFrames = new LatencyHistogram();
+    private final LatencyHistogram totalFrames = new LatencyHistogram();
+
+    public static void main(String[] args) {
+        double minutes = args.length > 0 ? Double.parseDouble(args[0]) : 60;
+        BotPlayer.Skill skill = args.length > 1 ? BotPlayer.parseSkill(args[1]) : BotPlayer.Skill.EXPERT;
+        int eventsPerSecond = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        if (skill == null || eventsPerSecond <= 0) {
+            System.err.println("Usage: java SoakRunner [minutes] [novice|casual|expert|perfect] [events/s] [seed]");
+            System.exit(2);
+        }
+        if (System.getProperty("fruitninja.scores") == null) {
+            System.setProperty("fruitninja.scores",
+                    System.getProperty("java.io.tmpdir") + "/fruitninja-soak-" + ProcessHandle.current().pid() + ".log");
+        }
+        boolean passed = new SoakRunner().run((long) (minutes * 60_000), skill, eventsPerSecond, seed);
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run(long durationMillis, BotPlayer.Skill skill, int eventsPerSecond, long seed) {
+        long windowMillis = Math.max(5_000, Math.min(60_000, durationMillis / 20));
+        int windows = (int) Math.max(2, durationMillis / windowMillis);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        BufferPoolMXBean direct = directBufferPool();
+
+        GamePanel panel = new GamePanel(seed);
+        panel.setSize(GamePanel.WIDTH, GamePanel.HEIGHT);
+        panel.getMetrics().setIntervalListener(new FrameMetrics.IntervalListener() {
+            public void interval(LatencyHistogram update, LatencyHistogram paint, LatencyHistogram gcPauses) {
+                synchronized (lock) {
+                    windowUpdate.add(update);
+                    windowPaint.add(paint);
+                    windowGc.add(gcPauses);
+                }
+            }
+        });
+        panel.startBot(skill, eventsPerSecond, seed);
+        BotPlayer bot = panel.getBot();
+        BufferedImage frame = new BufferedImage(GamePanel.WIDTH, GamePanel.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+
+        System.out.printf(Locale.ROOT, "Soak run: %d windows of %d s, %s bot at %d events/s, seed %d%n",
+                windows, windowMillis / 1000, skill.name().toLowerCase(Locale.ROOT), eventsPerSecond, seed);
+        System.out.println("  time  games  swipes  events/s  dropped | tick p50/p99/max us | paint p50/p99/max us"
+                + " | frame gap p99/max ms | gc   max ms | heap MB  threads  direct KB");
+        double[] minutesAt = new double[windows];
+        double[] heapMb = new double[windows];
+        int firstThreads = 0;
+        int lastThreads = 0;
+        long start = System.nanoTime();
+        long lastEvents = 0;
+        long nextFrame = start;
+        long lastFrame = start;
+        for (int w = 0; w < windows; w++) {
+            long windowEnd = start + (w + 1) * windowMillis * 1_000_000L;
+            while (System.nanoTime() < windowEnd) {
+                panel.paintComponent(g);
+                long now = System.nanoTime();
+                windowFrames.record(now - lastFrame);
+                lastFrame = now;
+                nextFrame = Math.max(nextFrame + 1_000_000_000L / FRAMES_PER_SECOND, now);
+                LockSupport.parkNanos(nextFrame - now);
+            }
+            System.gc();
+            long heap = memory.getHeapMemoryUsage().getUsed();
+            lastThreads = threads.getThreadCount();
+            if (w == 0) {
+                firstThreads = lastThreads;
+            }
+            minutesAt[w] = (System.nanoTime() - start) / 60e9;
+            heapMb[w] = heap / 1048576.0;
+            long events = bot.getEvents();
+            synchronized (lock) {
+                System.out.printf(Locale.ROOT,
+                        "%5.1fm %6d %7d %9.0f %8d | %5d %5d %6d | %5d %5d %6d | %8.1f %6.1f | %4d %6.1f | %7.1f %8d %10d%n",
+                        minutesAt[w], panel.getGamesPlayed(), bot.getSwipes(),
+                        (events - lastEvents) * 1000.0 / windowMillis, panel.getInputDropped(),
+                        windowUpdate.getValueAtPercentile(0.50) / 1000, windowUpdate.getValueAtPercentile(0.99) / 1000,
+                        windowUpdate.getMax() / 1000, windowPaint.getValueAtPercentile(0.50) / 1000,
+                        windowPaint.getValueAtPercentile(0.99) / 1000, windowPaint.getMax() / 1000,
+                        windowFrames.getValueAtPercentile(0.99) / 1e6, windowFrames.getMax() / 1e6,
+                        windowGc.getTotalCount(), windowGc.getMax() / 1e6, heapMb[w], lastThreads,
+                        direct == null ? 0 : direct.getMemoryUsed() / 1024);
+                totalUpdate.add(windowUpdate);
+                totalPaint.add(windowPaint);
+                totalGc.add(windowGc);
+                windowUpdate.reset();
+                windowPaint.reset();
+                windowGc.reset();
+            }
+            totalFrames.add(windowFrames);
+            windowFrames.reset();
+            lastEvents = events;
+        }
+        bot.stop();
+        panel.getMetrics().stop();
+        g.dispose();
+
+        double slope = slopePerHour(minutesAt, heapMb);
+        double growth = heapMb[windows - 1] - heapMb[0];
+        synchronized (lock) {
+            System.out.printf(Locale.ROOT, "Run: tick p50 %d us p99 %d us max %d us, paint p50 %d us p99 %d us max %d us%n",
+                    totalUpdate.getValueAtPercentile(0.50) / 1000, totalUpdate.getValueAtPercentile(0.99) / 1000,
+                    totalUpdate.getMax() / 1000, totalPaint.getValueAtPercentile(0.50) / 1000,
+                    totalPaint.getValueAtPercentile(0.99) / 1000, totalPaint.getMax() / 1000);
+            System.out.printf(Locale.ROOT, "     frame gap p99 %.1f ms p99.9 %.1f ms, %d gc pauses (max %.1f ms)%n",
+                    totalFrames.getValueAtPercentile(0.99) / 1e6, totalFrames.getValueAtPercentile(0.999) / 1e6,
+                    totalGc.getTotalCount(), totalGc.getMax() / 1e6);
+        }
+        System.out.printf(Locale.ROOT, "     %d games, %d swipes, %d input records (%d dropped)%n",
+                panel.getGamesPlayed(), bot.getSwipes(), bot.getEvents(), panel.getInputDropped());
+        System.out.printf(Locale.ROOT, "     live heap %.1f -> %.1f MB (%.2f MB/hour), threads %d -> %d%n",
+                heapMb[0], heapMb[windows - 1], slope, firstThreads, lastThreads);
+
+        boolean passed = true;
+        if (slope * 1048576 > MAX_GROWTH_PER_HOUR && growth * 1048576 > MIN_GROWTH) {
+            System.out.println("FAILED: live heap keeps growing");
+            passed = false;
+        }
+        if (lastThreads > firstThreads + THREAD_SLACK) {
+            System.out.println("FAILED: threads pile up");
+            passed = false;
+        }
+        return passed;
+    }
+
+    // Least-squares slope of heap (MB) over time (minutes), in MB per hour; the warm-up window is skipped
+    static double slopePerHour(double[] minutes, double[] heap) {
+        int n = minutes.length - 1;
+        if (n < 2) {
+            return 0;
+        }
+        double meanT = 0, meanH = 0;
+        for (int k = 1; k <= n; k++) {
+            meanT += minutes[k];
+            meanH += heap[k];
+        }
+        meanT /= n;
+        meanH /= n;
+        double covariance = 0, variance = 0;
+        for (int k = 1; k <= n; k++) {
+            covariance += (minutes[k] - meanT) * (heap[k] - meanH);
+            variance += (minutes[k] - meanT) * (minutes[k] - meanT);
+        }
+        return variance == 0 ? 0 : covariance / variance * 60;
+    }
+
+    private static BufferPoolMXBean directBufferPool() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool;
+            }
+        }
+        return null;
+    }
+}
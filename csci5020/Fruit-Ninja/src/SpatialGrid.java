@@ -0,0 +1,105 @@
+import java.util.Arrays;
+
+// Uniform-grid broad phase over the EntityStore for swipe collision queries.
+// Each entity is bucketed by the cell holding its center (counting sort into flat int arrays),
+// and a swipe segment only visits the cells its bounding box overlaps, grown by the largest radius
+// plus the largest distance an entity moved in the last tick (swept tests reach back that far).
+// Positions outside the grid are clamped to the border cells, which keeps queries exact.
+public class SpatialGrid {
+    private final int cellSize;
+    private final int originX, originY;   // world position of the top-left cell corner
+    private final int cols, rows;
+
+    private int[] cellStart;   // entities of cell c are cellItems[cellStart[c] .. cellStart[c+1])
+    private int[] cellFill;    // scratch write cursor per cell during rebuild
+    private int[] cellItems;   // entity slot indices grouped by cell
+    private int[] entityCell;  // cell of each entity slot, from the last rebuild
+    private int maxRadius;     // largest entity radius at the last rebuild
+    private int maxStep;       // largest per-axis distance an entity moved in the last tick
+
+    private int[] result;      // candidates of the last query, in ascending slot order
+    private int resultCount;
+
+    // Grid covering width x height plus one cell of margin on every side (objects spawn just below the screen)
+    public SpatialGrid(int width, int height, int cellSize) {
+        this.cellSize = cellSize;
+        this.originX = -cellSize;
+        this.originY = -cellSize;
+        this.cols = (width + 2 * cellSize + cellSize - 1) / cellSize;
+        this.rows = (height + 2 * cellSize + cellSize - 1) / cellSize;
+        cellStart = new int[cols * rows + 1];
+        cellFill = new int[cols * rows];
+        cellItems = new int[64];
+        entityCell = new int[64];
+        result = new int[64];
+    }
+
+    // Re-bucket every entity; call after the physics step so cells match the current positions
+    public void rebuild(EntityStore store) {
+        int n = store.size();
+        if (cellItems.length < n) {
+            int capacity = Math.max(n, cellItems.length * 2);
+            cellItems = new int[capacity];
+            entityCell = new int[capacity];
+            result = new int[capacity];
+        }
+        Arrays.fill(cellStart, 0);
+        maxRadius = 0;
+        double step = 0;
+        for (int i = 0; i < n; i++) {
+            int c = cellIndex(column((int) store.getX(i)), row((int) store.getY(i)));
+            entityCell[i] = c;
+            cellStart[c + 1]++;
+            maxRadius = Math.max(maxRadius, store.getRadius(i));
+            step = Math.max(step, store.getStep(i));
+        }
+        maxStep = (int) Math.ceil(step);
+        // Prefix sum turns per-cell counts into start offsets
+        for (int c = 0; c < cellFill.length; c++) {
+            cellStart[c + 1] += cellStart[c];
+            cellFill[c] = cellStart[c];
+        }
+        // Ascending slot order inside every cell
+        for (int i = 0; i < n; i++) {
+            cellItems[cellFill[entityCell[i]]++] = i;
+        }
+    }
+
+    // Collect every entity that may touch segment (x1,y1)->(x2,y2); returns the candidate count.
+    // Candidates are sorted by slot index so callers resolve hits in the same order as a linear scan.
+    public int query(int x1, int y1, int x2, int y2) {
+        int reach = maxRadius + maxStep;
+        int minCol = column(Math.min(x1, x2) - reach);
+        int maxCol = column(Math.max(x1, x2) + reach);
+        int minRow = row(Math.min(y1, y2) - reach);
+        int maxRow = row(Math.max(y1, y2) + reach);
+        resultCount = 0;
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                int cell = cellIndex(c, r);
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    result[resultCount++] = cellItems[k];
+                }
+            }
+        }
+        Arrays.sort(result, 0, resultCount);
+        return resultCount;
+    }
+
+    // k-th candidate slot of the last query
+    public int getResult(int k) {
+        return result[k];
+    }
+
+    private int column(int x) {
+        return Math.min(cols - 1, Math.max(0, Math.floorDiv(x - originX, cellSize)));
+    }
+
+    private int row(int y) {
+        return Math.min(rows - 1, Math.max(0, Math.floorDiv(y - originY, cellSize)));
+    }
+
+    private int cellIndex(int column, int row) {
+        return row * cols + column;
+    }
+}
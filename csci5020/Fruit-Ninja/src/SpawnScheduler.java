@@ -0,0 +1,97 @@
+import java.util.Random;
+
+// Launches objects from the bottom of the screen following a WaveTable (FR1, FR7). The wave is
+// picked by score; every wave.interval ticks it launches a batch of objects.
+//
+// Launch parameters (x, velocity, spawn kind) are drawn ahead of time in bulk: TABLE_SIZE entries
+// for the current wave at once, then handed out one per spawn. The spawn kind comes from the
+// wave's alias table, so choosing among fruit, bomb and bonus types is O(1) however many there
+// are. A wave change throws the unused entries away. Everything is drawn from the game's Random,
+// and the table is plain arrays, so spawning stays deterministic and never allocates.
+public class SpawnScheduler {
+    private static final int TABLE_SIZE = 256;                               // launches drawn per refill
+    private static final int LAUNCH_Y = GameSimulation.HEIGHT + 10;          // just below the bottom of the screen
+
+    private final WaveTable waves;
+    private final Random rand;
+    private final EntityStore objects;
+
+    // Precomputed launches for the current wave; entries [next, TABLE_SIZE) are unused
+    private final int[] launchX = new int[TABLE_SIZE];
+    private final double[] launchVx = new double[TABLE_SIZE];
+    private final double[] launchVy = new double[TABLE_SIZE];
+    private final byte[] launchKind = new byte[TABLE_SIZE];
+    private int next;
+
+    private int wave;             // index of the current wave
+    private int counter;          // ticks since the last batch
+
+    public SpawnScheduler(WaveTable waves, Random rand, EntityStore objects) {
+        this.waves = waves;
+        this.rand = rand;
+        this.objects = objects;
+        reset();
+    }
+
+    // Back to the first wave for a new game
+    public void reset() {
+        wave = 0;
+        counter = 0;
+        next = TABLE_SIZE;
+    }
+
+    // Advance one tick at the given score; returns the number of objects launched
+    public int tick(int score) {
+        while (wave + 1 < waves.getWaveCount() && score >= waves.getWave(wave + 1).minScore) {
+            wave++;
+            next = TABLE_SIZE; // launches drawn for the old wave no longer apply
+        }
+        WaveTable.Wave current = waves.getWave(wave);
+        counter++;
+        if (counter < current.interval) {
+            return 0;
+        }
+        counter = 0;
+        int batch = current.batchMin;
+        if (current.batchMax > current.batchMin) {
+            batch += rand.nextInt(current.batchMax - current.batchMin + 1);
+        }
+        for (int i = 0; i < batch; i++) {
+            spawn();
+        }
+        return batch;
+    }
+
+    // Launch the next precomputed object of the current wave
+    public void spawn() {
+        if (next == TABLE_SIZE) {
+            refill(waves.getWave(wave));
+        }
+        int k = launchKind[next];
+        objects.spawn(WaveTable.getKind(k), WaveTable.getType(k), launchX[next], LAUNCH_Y,
+                launchVx[next], launchVy[next], GameSimulation.OBJECT_RADIUS);
+        next++;
+    }
+
+    // Draw TABLE_SIZE launches for wave w
+    private void refill(WaveTable.Wave w) {
+        int span = GameSimulation.WIDTH - 2 * w.margin;
+        double speedRange = w.speedMax - w.speedMin;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            launchX[i] = w.margin + rand.nextInt(span);
+            launchVy[i] = -(w.speedMin + rand.nextDouble() * speedRange); // upward (negative y)
+            launchVx[i] = (rand.nextDouble() * 2 - 1) * w.maxVx;
+            launchKind[i] = (byte) w.kinds.sample(rand);
+        }
+        next = 0;
+    }
+
+    // Ticks between batches in the current wave
+    public int getInterval() {
+        return waves.getWave(wave).interval;
+    }
+
+    public int getWaveIndex() {
+        return wave;
+    }
+}
@@ -0,0 +1,220 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// Receiving end of SnapshotServer. A daemon thread reads snapshot messages, rebuilds each one from
+// the baseline it was encoded against, keeps it in a ring of the last HISTORY snapshots and
+// acknowledges it, so the server's next delta can build on it.
+//
+// The viewer draws with sample(): the state interpolated between the two snapshots around a
+// playback time that runs DELAY_TICKS behind the newest snapshot, so snapshots arriving a little
+// late or skipped by the server do not make objects stutter. The playback clock follows the
+// server's tick clock, smoothed over arrival jitter, and jumps when the server has paused (game over).
+public class SpectatorClient implements Runnable {
+    private static final int HISTORY = SnapshotServer.HISTORY;
+    private static final double DELAY_TICKS = 3;        // playback delay, 50 ms at 60 ticks/s
+    private static final double CLOCK_SMOOTHING = 0.05; // weight of each arrival in the clock estimate
+    private static final double RESYNC_TICKS = 30;      // clock jumps by more than this (server paused) are taken at once
+    private static final int INITIAL_BUFFER = 64 * 1024;
+
+    private final SocketChannel channel;
+    private ByteBuffer in = ByteBuffer.allocateDirect(INITIAL_BUFFER);
+    private final ByteBuffer ack = ByteBuffer.allocateDirect(16);
+    private final Snapshot decoded = new Snapshot();
+
+    // Guarded by this: received snapshots by tick % HISTORY and the playback clock
+    private final Snapshot[] history = new Snapshot[HISTORY];
+    private int newestTick = -1;
+    private double clockOffsetNanos;    // arrival time minus tick time, smoothed
+    private long bytesReceived;
+    private volatile boolean closed;
+
+    private SpectatorClient(SocketChannel channel) {
+        this.channel = channel;
+        in.limit(0);
+        for (int k = 0; k < HISTORY; k++) {
+            history[k] = new Snapshot();
+        }
+    }
+
+    // Connect to a server and start receiving
+    public static SpectatorClient connect(String host, int port) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SpectatorClient client = new SpectatorClient(channel);
+        Thread thread = new Thread(client, "spectator-client");
+        thread.setDaemon(true);
+        thread.start();
+        return client;
+    }
+
+    public void run() {
+        try {
+            while (!closed) {
+                readMessage();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!closed) {
+                System.err.println("Spectator connection lost: " + e);
+            }
+        } finally {
+            close();
+        }
+    }
+
+    // Read and apply one complete message
+    private void readMessage() throws IOException {
+        fill(4);
+        int length = in.getInt(in.position());
+        if (length < 1) {
+            throw new IOException("bad message length " + length);
+        }
+        if (in.capacity() < 4 + length) {
+            // Larger than any snapshot so far; move what we have into a bigger buffer
+            ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(4 + length, in.capacity() * 2));
+            bigger.put(in);
+            bigger.flip();
+            in = bigger;
+        }
+        fill(4 + length);
+        int end = in.position() + 4 + length;
+        in.position(in.position() + 4);
+        if (in.get() == SnapshotCodec.SNAPSHOT) {
+            int baselineTick = SnapshotCodec.readBaselineTick(in);
+            Snapshot baseline = null;
+            if (baselineTick >= 0) {
+                // Only this thread writes the history, so it can read it without the lock
+                baseline = history[baselineTick % HISTORY];
+                if (baseline.tick != baselineTick) {
+                    throw new IOException("baseline " + baselineTick + " is no longer kept");
+                }
+            }
+            SnapshotCodec.readSnapshot(in, baseline, decoded);
+            store(decoded, System.nanoTime(), 4 + length);
+            ack.clear();
+            SnapshotCodec.writeAck(decoded.tick, ack);
+            ack.flip();
+            while (ack.hasRemaining()) {
+                channel.write(ack);
+            }
+        }
+        in.position(end);
+    }
+
+    // Make sure at least n bytes are readable at the buffer's position (in read mode)
+    private void fill(int n) throws IOException {
+        if (in.remaining() >= n) {
+            return;
+        }
+        in.compact();
+        while (in.position() < n) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("server closed the connection");
+            }
+        }
+        in.flip();
+    }
+
+    private synchronized void store(Snapshot snapshot, long arrivalNanos, int bytes) {
+        history[snapshot.tick % HISTORY].copyFrom(snapshot);
+        double offset = arrivalNanos - (double) snapshot.tick * GameLoop.TICK_NANOS;
+        if (newestTick < 0 || Math.abs(offset - clockOffsetNanos) > RESYNC_TICKS * GameLoop.TICK_NANOS) {
+            clockOffsetNanos = offset;
+        } else {
+            clockOffsetNanos += (offset - clockOffsetNanos) * CLOCK_SMOOTHING;
+        }
+        newestTick = Math.max(newestTick, snapshot.tick);
+        bytesReceived += bytes;
+    }
+
+    // Fill out with the state to show at time nowNanos, positions interpolated between the
+    // snapshots around the playback time; out.tick is -1 until the first snapshot arrives
+    public synchronized void sample(long nowNanos, Snapshot out) {
+        if (newestTick < 0) {
+            out.tick = -1;
+            out.count = 0;
+            return;
+        }
+        double playback = (nowNanos - clockOffsetNanos) / GameLoop.TICK_NANOS - DELAY_TICKS;
+        // Newest snapshot at or before the playback time (a) and the next one after it (b)
+        Snapshot a = null, b = null;
+        for (int k = 0; k < HISTORY; k++) {
+            Snapshot s = history[k];
+            if (s.tick < 0 || newestTick - s.tick >= HISTORY) {
+                continue;
+            }
+            if (s.tick <= playback) {
+                if (a == null || s.tick > a.tick) {
+                    a = s;
+                }
+            } else if (b == null || s.tick < b.tick) {
+                b = s;
+            }
+        }
+        if (a == null) {
+            out.copyFrom(b);   // playback is before everything we have: show the oldest
+            return;
+        }
+        if (b == null) {
+            out.copyFrom(a);   // nothing newer yet: hold the newest
+            return;
+        }
+        double t = (playback - a.tick) / (b.tick - a.tick);
+        out.ensureCapacity(a.count);
+        out.tick = a.tick;
+        out.score = a.score;
+        out.lives = a.lives;
+        out.gameOver = a.gameOver;
+        // Objects in both move between their two positions; objects only in a stay where they were
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < a.count; i++) {
+            int id = a.ids[i];
+            while (j < b.count && b.ids[j] < id) {
+                j++;
+            }
+            out.ids[count] = id;
+            out.looks[count] = a.looks[i];
+            if (j < b.count && b.ids[j] == id) {
+                out.xs[count] = (int) Math.round(a.xs[i] + (b.xs[j] - a.xs[i]) * t);
+                out.ys[count] = (int) Math.round(a.ys[i] + (b.ys[j] - a.ys[i]) * t);
+            } else {
+                out.xs[count] = a.xs[i];
+                out.ys[count] = a.ys[i];
+            }
+            count++;
+        }
+        out.count = count;
+    }
+
+    // Copy the newest received snapshot into out (for SnapshotBenchmark)
+    synchronized void copyNewest(Snapshot out) {
+        if (newestTick >= 0) {
+            out.copyFrom(history[newestTick % HISTORY]);
+        }
+    }
+
+    public synchronized int getNewestTick() {
+        return newestTick;
+    }
+
+    public synchronized long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void close() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import javax.swing.JPanel;
+
+// Read-only view of a game streamed by SnapshotServer: draws what SpectatorClient.sample() returns
+// for the current time, scaled to fit the panel like GamePanel. There is no simulation and no
+// input; the game loop only repaints at display rate. Opened by FruitNinjaGame with
+// -Dfruitninja.spectate=<host>:<port>.
+@SuppressWarnings("serial") // never serialized
+public class SpectatorPanel extends JPanel implements GameLoop.Callbacks {
+    private static final String WAITING_TEXT = "Waiting for the game...";
+    private static final ScoreStore.Session[] NO_SCORES = new ScoreStore.Session[0];
+
+    private final SpectatorClient client;
+    private final Snapshot view = new Snapshot();  // state shown by the current paint (EDT only)
+    private final SpriteCache sprites = new SpriteCache(GameSimulation.OBJECT_RADIUS);
+    private final Hud hud;
+    private final GameLoop loop;
+    private Viewport viewport = Viewport.create(GameSimulation.WIDTH, GameSimulation.HEIGHT,
+            GameSimulation.WIDTH, GameSimulation.HEIGHT, null);
+
+    public SpectatorPanel(SpectatorClient client) {
+        this.client = client;
+        setPreferredSize(new Dimension(GameSimulation.WIDTH, GameSimulation.HEIGHT));
+        setBackground(Color.DARK_GRAY);
+        hud = new Hud(this);
+        loop = new GameLoop(this, GameLoop.TICKS_PER_SECOND);
+        loop.start();
+    }
+
+    // Nothing to simulate; the server owns the game
+    @Override
+    public void tick() {
+    }
+
+    @Override
+    public void render(double alpha) {
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        if (!viewport.matches(getWidth(), getHeight(), getGraphicsConfiguration())) {
+            viewport = Viewport.create(GameSimulation.WIDTH, GameSimulation.HEIGHT, getWidth(), getHeight(),
+                    getGraphicsConfiguration());
+        }
+        Viewport v = viewport;
+        g2.setColor(Color.BLACK);
+        g2.fillRect(0, 0, getWidth(), getHeight());
+        // Draw in world units, then undo the transform for Swing's later painting
+        double scale = (double) v.getScreenWidth() / GameSimulation.WIDTH;
+        g2.translate(v.getOffsetX(), v.getOffsetY());
+        g2.scale(scale, scale);
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, GameSimulation.WIDTH, GameSimulation.HEIGHT);
+        client.sample(System.nanoTime(), view);
+        if (view.getTick() < 0) {
+            hud.drawComboMessage(g2, client.isClosed() ? "Connection closed" : WAITING_TEXT, GameSimulation.WIDTH);
+        } else {
+            sprites.validate(g2.getDeviceConfiguration(), v.getBufferScale());
+            for (int i = 0; i < view.getCount(); i++) {
+                sprites.draw(g2, view.getKind(i), view.getType(i), (int) Math.round(view.getX(i)),
+                        (int) Math.round(view.getY(i)));
+            }
+            hud.drawStatus(g2, view.getScore(), view.getLives(), v.getBufferScale());
+            if (view.isGameOver()) {
+                hud.drawGameOver(g2, GameSimulation.WIDTH, GameSimulation.HEIGHT, view.getScore(), NO_SCORES);
+            }
+        }
+        g2.scale(1 / scale, 1 / scale);
+        g2.translate(-v.getOffsetX(), -v.getOffsetY());
+    }
+
+    public void close() {
+        loop.stop();
+        client.close();
+    }
+}
@@ -0,0 +1,126 @@
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+// Pre-rendered images of every fruit type, bonus type and the bomb, so drawing an object is a
+// single drawImage blit instead of rasterising ovals and text every frame.
+// Sprites are made with the display's GraphicsConfiguration (compatible, translucent images) at the
+// pixel scale they are drawn at (HiDPI displays and scaled viewports, see Viewport), so a scaled
+// frame still blits them one to one. They are rebuilt when the display configuration, the pixel
+// scale or the quality settings change (QualityGovernor): antialiased edges, fruit outlines, and
+// translucent versus 1-bit transparency. Bitmask sprites are copied without per-pixel blending,
+// which halves the blit cost.
+public class SpriteCache {
+    private final int radius;                // objects of this radius are drawn from the cache
+    private GraphicsConfiguration config;    // configuration the sprites were made for, null to rebuild
+    private double scale = 1.0;              // sprite pixels per world unit
+    private boolean antialiased = true;      // smooth sprite edges (translucent sprites only)
+    private boolean outlines = true;         // black outline around fruit
+    private boolean bitmask;                 // 1-bit transparency instead of translucent sprites
+    private BufferedImage[] fruitSprites;    // indexed by FruitType ordinal
+    private BufferedImage[] bonusSprites;    // indexed by BonusType ordinal
+    private BufferedImage bombSprite;
+
+    public SpriteCache(int radius) {
+        this.radius = radius;
+    }
+
+    // Change how sprites are drawn; they are rebuilt by the next validate() if anything changed
+    public void setQuality(boolean antialiased, boolean outlines, boolean bitmask) {
+        if (antialiased != this.antialiased || outlines != this.outlines || bitmask != this.bitmask) {
+            this.antialiased = antialiased;
+            this.outlines = outlines;
+            this.bitmask = bitmask;
+            config = null;
+        }
+    }
+
+    // Make sure sprites match the given configuration at 1:1 scale; call before drawing a frame
+    public void validate(GraphicsConfiguration gc) {
+        validate(gc, 1.0);
+    }
+
+    // Make sure sprites match the given configuration and the pixel scale of the frame
+    public void validate(GraphicsConfiguration gc, double pixelScale) {
+        if (gc == null || (gc == config && pixelScale == scale)) {
+            return;
+        }
+        config = gc;
+        scale = pixelScale;
+        Fruit.FruitType[] fruitTypes = Fruit.FruitType.values();
+        fruitSprites = new BufferedImage[fruitTypes.length];
+        for (Fruit.FruitType type : fruitTypes) {
+            BufferedImage image = createSprite(gc);
+            Graphics2D g = createGraphics(image);
+            Fruit.draw(g, type, radius, radius, radius, outlines);
+            g.dispose();
+            fruitSprites[type.ordinal()] = image;
+        }
+        BonusItem.BonusType[] bonusTypes = BonusItem.BonusType.values();
+        bonusSprites = new BufferedImage[bonusTypes.length];
+        for (BonusItem.BonusType type : bonusTypes) {
+            BufferedImage image = createSprite(gc);
+            Graphics2D g = createGraphics(image);
+            BonusItem.draw(g, type, radius, radius, radius);
+            g.dispose();
+            bonusSprites[type.ordinal()] = image;
+        }
+        bombSprite = createSprite(gc);
+        Graphics2D g = createGraphics(bombSprite);
+        Bomb.draw(g, radius, radius, radius);
+        g.dispose();
+    }
+
+    // Outlines are drawn one pixel past the diameter, so sprites are 2r+1 units square
+    private BufferedImage createSprite(GraphicsConfiguration gc) {
+        int size = (int) Math.ceil((radius * 2 + 1) * scale);
+        return gc.createCompatibleImage(size, size, bitmask ? Transparency.BITMASK : Transparency.TRANSLUCENT);
+    }
+
+    // Antialiased edges need partial alpha, so bitmask sprites are always drawn aliased
+    private Graphics2D createGraphics(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        if (scale != 1.0) {
+            g.scale(scale, scale);
+        }
+        if (antialiased && !bitmask) {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        }
+        return g;
+    }
+
+    public boolean isValid() {
+        return config != null;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    // Draw the sprite of an EntityStore kind and type index centered on (x, y), in world units
+    public void draw(Graphics g, byte kind, int type, int x, int y) {
+        if (scale == 1.0) {
+            g.drawImage(get(kind, type), x - radius, y - radius, null);
+        } else {
+            // The frame is drawn at the same scale, so this copies the sprite (nearly) pixel for pixel
+            int size = radius * 2 + 1;
+            g.drawImage(get(kind, type), x - radius, y - radius, size, size, null);
+        }
+    }
+
+    // Sprite for an EntityStore kind and type index; its top-left goes at (x - radius, y - radius)
+    public BufferedImage get(byte kind, int type) {
+        switch (kind) {
+            case EntityStore.KIND_FRUIT:
+                return fruitSprites[type];
+            case EntityStore.KIND_BOMB:
+                return bombSprite;
+            default:
+                return bonusSprites[type];
+        }
+    }
+}
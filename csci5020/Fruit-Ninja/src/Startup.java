@@ -0,0 +1,179 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Startup pipeline of FruitNinjaGame: the window comes up first with a plain splash, and the game
+// panel replaces it as soon as it is built; nothing waits for a warm-up. Beside it, a background
+// thread plays a throwaway game for a short time budget: a bare GameSimulation driven by an
+// AutoSwiper, drawn offscreen with its own sprite cache, particles, trail and HUD. That loads the
+// fonts and glyph caches, Java2D loops and sprite drawing, and gets the tick path
+// (EntityStore.updateAndCull, intersectsLine via the swipe collision) and the paint path compiled
+// while the first seconds of the real game are still quiet. With a spare core the warm-up starts
+// as soon as the window is up; on a single core it waits for the first game frame, so it never
+// delays it.
+//
+// -Dfruitninja.warmup=<ms>            background warm-up budget (default 300, 0 turns it off)
+// -Dfruitninja.startupReport=true     print when the window and the first game frame appeared,
+//                                     in ms since the JVM started, and what the warm-up did
+// -Dfruitninja.exitAfterFirstFrame=true  exit after the first game frame (StartupBenchmark,
+//                                     AppCDS training in game/fruit-ninja.sh)
+//
+// Without a display, FruitNinjaGame runs the same pipeline offscreen (runOffscreen), so the time
+// to first frame can be measured and CDS archives trained headless.
+public final class Startup {
+    private static final long WARMUP_MILLIS = Long.getLong("fruitninja.warmup", 300);
+    private static final boolean REPORT = Boolean.getBoolean("fruitninja.startupReport");
+    private static final boolean EXIT_AFTER_FIRST_FRAME = Boolean.getBoolean("fruitninja.exitAfterFirstFrame");
+    private static final long WARMUP_SEED = 1;
+    private static final int WARMUP_OBJECTS = 40;   // keeps every kind of object on screen
+    private static final int PAINT_EVERY = 8;       // warm-up ticks per frame; ticks need far more runs to compile
+
+    private static final AtomicBoolean splashPainted = new AtomicBoolean();
+    private static final AtomicBoolean gameShown = new AtomicBoolean();
+    private static final AtomicBoolean warmupStarted = new AtomicBoolean();
+    private static volatile long windowMillis = -1; // when the splash was first painted, ms since JVM start
+
+    private Startup() {
+    }
+
+    // Start the warm-up if a spare core can run it beside the rest of startup; call once the window is up
+    static void windowShown() {
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            startWarmUp();
+        }
+    }
+
+    // Called by the splash's first paint
+    static void windowPainted() {
+        if (splashPainted.compareAndSet(false, true)) {
+            windowMillis = sinceJvmStart();
+        }
+    }
+
+    // Called by GamePanel after its first game frame; may run with the panel's state lock held
+    static void gameFramePainted() {
+        if (!gameShown.compareAndSet(false, true)) {
+            return;
+        }
+        if (REPORT) {
+            System.out.printf(Locale.ROOT, "Startup: window %s, first game frame %d ms after JVM start%n",
+                    windowMillis < 0 ? "not shown" : windowMillis + " ms", sinceJvmStart());
+        }
+        if (EXIT_AFTER_FIRST_FRAME) {
+            // Not on this thread: shutdown hooks take the state lock the caller may hold
+            new Thread(new Runnable() {
+                public void run() {
+                    System.exit(0);
+                }
+            }, "startup-exit").start();
+            return;
+        }
+        startWarmUp();
+    }
+
+    // Run the warm-up on its own daemon thread, once
+    private static void startWarmUp() {
+        if (WARMUP_MILLIS <= 0 || !warmupStarted.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                warmUp();
+            }
+        }, "startup-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    // Play a throwaway game offscreen for the warm-up budget: ticks every time, a frame every
+    // PAINT_EVERY ticks. Shares no state with the real game.
+    private static void warmUp() {
+        long start = System.nanoTime();
+        GameSimulation simulation = new GameSimulation(WARMUP_SEED);
+        final ParticleSystem particles = new ParticleSystem(ParticleSystem.DEFAULT_CAPACITY,
+                GameSimulation.WIDTH, GameSimulation.HEIGHT, WARMUP_SEED);
+        simulation.setEffects(new GameSimulation.Effects() {
+            public void sliced(byte kind, int type, double x, double y, double vx, double vy, int dx, int dy) {
+                particles.emitSlice(kind, type, x, y, vx, vy, dx, dy);
+            }
+        });
+        AutoSwiper player = new AutoSwiper(WARMUP_SEED, 1.0);
+        SpriteCache sprites = new SpriteCache(GameSimulation.OBJECT_RADIUS);
+        SwipeTrail trail = new SwipeTrail();
+        BufferedImage frame = createFrame();
+        Graphics2D g = frame.createGraphics();
+        Hud hud = new Hud(new Font(Font.DIALOG, Font.PLAIN, 12), g); // the panels' default font
+        long end = start + WARMUP_MILLIS * 1_000_000L;
+        long ticks = 0;
+        while (System.nanoTime() < end) {
+            while (simulation.getObjects().size() < WARMUP_OBJECTS) {
+                simulation.spawnObject();
+            }
+            simulation.step(player);
+            particles.update(simulation.getTimeScale().get(TimeScale.PARTICLES));
+            // A blade circling the middle of the screen, for the trail
+            long now = System.nanoTime() / 1_000_000;
+            trail.add(GameSimulation.WIDTH / 2 + (int) (200 * Math.cos(ticks / 8.0)),
+                    GameSimulation.HEIGHT / 2 + (int) (150 * Math.sin(ticks / 8.0)), now);
+            if (ticks % PAINT_EVERY == 0) {
+                // The gameplay part of GamePanel.paintGame
+                g.setColor(Color.DARK_GRAY);
+                g.fillRect(0, 0, GameSimulation.WIDTH, GameSimulation.HEIGHT);
+                sprites.validate(g.getDeviceConfiguration(), 1.0);
+                simulation.getObjects().draw(g, 0.5, sprites);
+                particles.draw(g, 0.5);
+                trail.draw(g, now);
+                hud.drawStatus(g, simulation.getScore(), simulation.getLives(), 1.0);
+                hud.drawComboMessage(g, simulation.getComboMessage(), GameSimulation.WIDTH);
+            }
+            if (simulation.isGameOver()) {
+                simulation.reset();
+                particles.clear();
+            }
+            ticks++;
+        }
+        g.dispose();
+        if (REPORT) {
+            System.out.printf(Locale.ROOT, "Startup: warm-up ran %d ticks in %d ms%n",
+                    ticks, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    // Headless: paint the first frame of a real game offscreen, with the warm-up beside it as in a window
+    static void runOffscreen() {
+        windowShown();
+        GamePanel panel = new GamePanel(System.nanoTime(), false);
+        panel.setSize(GamePanel.WIDTH, GamePanel.HEIGHT);
+        BufferedImage frame = createFrame();
+        Graphics2D g = frame.createGraphics();
+        panel.tick();
+        panel.paintComponent(g);
+        g.dispose();
+        gameFramePainted();
+    }
+
+    // Offscreen frame in the screen's pixel format when there is one
+    private static BufferedImage createFrame() {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+            return gc.createCompatibleImage(GamePanel.WIDTH, GamePanel.HEIGHT);
+        }
+        return new BufferedImage(GamePanel.WIDTH, GamePanel.HEIGHT, BufferedImage.TYPE_INT_RGB);
+    }
+
+    // Milliseconds since the JVM process started
+    private static long sinceJvmStart() {
+        long now = System.currentTimeMillis();
+        Optional<Instant> start = ProcessHandle.current().info().startInstant();
+        return start.isPresent() ? now - start.get().toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.Arrays;
+
+// Narrow phase for swipe slicing: runs EntityStore.sweptHitTime over the candidates of one swipe
+// segment (grid cells near the segment, or every object when only a few are on screen) and returns
+// the hits sorted by when the blade reached them, so their effects are applied in the order they happened.
+public class SweptCollision {
+    private static final int GRID_MIN_OBJECTS = 8; // below this a linear scan beats the grid (see SpatialGridBenchmark)
+
+    private int[] hits = new int[16];          // slot indices of the last query's hits
+    private double[] hitTimes = new double[16]; // fraction along the swipe segment of each hit
+    private int hitCount;
+
+    // Find unsliced objects touched by swipe segment (x1,y1)->(x2,y2); returns the number of hits
+    public int collide(EntityStore objects, SpatialGrid grid, int x1, int y1, int x2, int y2) {
+        hitCount = 0;
+        if (objects.size() >= GRID_MIN_OBJECTS) {
+            int candidates = grid.query(x1, y1, x2, y2);
+            for (int k = 0; k < candidates; k++) {
+                test(objects, grid.getResult(k), x1, y1, x2, y2);
+            }
+        } else {
+            for (int i = 0; i < objects.size(); i++) {
+                test(objects, i, x1, y1, x2, y2);
+            }
+        }
+        sortByTime();
+        return hitCount;
+    }
+
+    private void test(EntityStore objects, int i, int x1, int y1, int x2, int y2) {
+        if (objects.isSliced(i)) {
+            return;
+        }
+        double time = objects.sweptHitTime(i, x1, y1, x2, y2);
+        if (time >= 0) {
+            if (hitCount == hits.length) {
+                hits = Arrays.copyOf(hits, hitCount * 2);
+                hitTimes = Arrays.copyOf(hitTimes, hitCount * 2);
+            }
+            hits[hitCount] = i;
+            hitTimes[hitCount] = time;
+            hitCount++;
+        }
+    }
+
+    // Stable insertion sort (a swipe segment only ever hits a handful of objects); ties keep slot order
+    private void sortByTime() {
+        for (int k = 1; k < hitCount; k++) {
+            int hit = hits[k];
+            double time = hitTimes[k];
+            int j = k - 1;
+            while (j >= 0 && hitTimes[j] > time) {
+                hits[j + 1] = hits[j];
+                hitTimes[j + 1] = hitTimes[j];
+                j--;
+            }
+            hits[j + 1] = hit;
+            hitTimes[j + 1] = time;
+        }
+    }
+
+    // Slot index of the k-th hit in time order
+    public int getHit(int k) {
+        return hits[k];
+    }
+
+    // Fraction along the swipe segment (0 = start event, 1 = end event) at which the k-th hit happened
+    public double getHitTime(int k) {
+        return hitTimes[k];
+    }
+}
@@ -0,0 +1,155 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.geom.Path2D;
+
+// Blade trail of the current swipe (UIR1) kept in a fixed-capacity ring buffer of primitive points.
+// Only the last TRAIL_MILLIS of movement is kept (half that when the quality is lowered), points
+// closer than MIN_DISTANCE to the previous one are dropped, and the trail is drawn as a few
+// reusable antialiased polylines that fade with age.
+// The trail is for display only: slice detection uses every raw drag segment (see
+// GameSimulation.swipeMove and sliceAlong).
+public class SwipeTrail {
+    private static final int CAPACITY = 256;           // max points kept, oldest are overwritten
+    private static final long TRAIL_MILLIS = 250;      // how long a point stays visible
+    private static final int MIN_DISTANCE = 2;         // px; closer points add nothing visible
+    private static final int FADE_BANDS = 4;           // age buckets, each drawn with one path and alpha
+    private static final Stroke STROKE = new BasicStroke(3, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final Color[] BAND_COLORS = new Color[FADE_BANDS];
+    static {
+        for (int band = 0; band < FADE_BANDS; band++) {
+            // Newest band fully opaque, older bands progressively more transparent
+            BAND_COLORS[band] = new Color(255, 255, 255, 255 - band * 200 / FADE_BANDS);
+        }
+    }
+
+    private final int[] xs = new int[CAPACITY];
+    private final int[] ys = new int[CAPACITY];
+    private final long[] times = new long[CAPACITY];  // milliseconds
+    private int head;    // index of the oldest point
+    private int count;   // number of points in the buffer
+    private long lifetimeMillis = TRAIL_MILLIS;  // how long points stay visible at the current quality
+    private boolean antialiased = true;          // smooth trail edges
+
+    private final Path2D.Float[] bandPaths = new Path2D.Float[FADE_BANDS];
+    private final boolean[] bandUsed = new boolean[FADE_BANDS];
+
+    public SwipeTrail() {
+        for (int band = 0; band < FADE_BANDS; band++) {
+            bandPaths[band] = new Path2D.Float(Path2D.WIND_NON_ZERO, CAPACITY);
+        }
+    }
+
+    public void clear() {
+        head = 0;
+        count = 0;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    // Quality settings (QualityGovernor): a short trail keeps points for half as long
+    public void setQuality(boolean antialiased, boolean shortTrail) {
+        this.antialiased = antialiased;
+        lifetimeMillis = shortTrail ? TRAIL_MILLIS / 2 : TRAIL_MILLIS;
+    }
+
+    // Append a point; returns false if it was dropped for being too close to the previous one
+    public boolean add(int x, int y, long timeMillis) {
+        expire(timeMillis);
+        if (count > 0) {
+            int last = index(count - 1);
+            int dx = x - xs[last];
+            int dy = y - ys[last];
+            if (dx * dx + dy * dy < MIN_DISTANCE * MIN_DISTANCE) {
+                return false;
+            }
+        }
+        int i;
+        if (count == CAPACITY) {
+            // Full: overwrite the oldest point
+            i = head;
+            head = (head + 1) % CAPACITY;
+        } else {
+            i = index(count++);
+        }
+        xs[i] = x;
+        ys[i] = y;
+        times[i] = timeMillis;
+        return true;
+    }
+
+    // Forget points older than the trail length
+    private void expire(long nowMillis) {
+        while (count > 0 && nowMillis - times[head] > lifetimeMillis) {
+            head = (head + 1) % CAPACITY;
+            count--;
+        }
+    }
+
+    private int index(int k) {
+        return (head + k) % CAPACITY;
+    }
+
+    // Add the box around every point still in the buffer (the trail can only shrink until the next add)
+    public void addDamage(DamageRegion region) {
+        if (count == 0) {
+            return;
+        }
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int k = 0; k < count; k++) {
+            int i = index(k);
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        int pad = 3; // half the stroke width plus round caps and antialiasing
+        region.add(minX - pad, minY - pad, maxX + pad + 1, maxY + pad + 1);
+    }
+
+    // Draw the visible trail; segments are grouped into age bands so each band is one draw call
+    public void draw(Graphics2D g, long nowMillis) {
+        expire(nowMillis);
+        if (count < 2) {
+            return;
+        }
+        for (int band = 0; band < FADE_BANDS; band++) {
+            bandPaths[band].reset();
+            bandUsed[band] = false;
+        }
+        int previousBand = -1;
+        for (int k = 1; k < count; k++) {
+            int from = index(k - 1);
+            int to = index(k);
+            long age = nowMillis - times[to];
+            int band = (int) Math.min(FADE_BANDS - 1, Math.max(0, age * FADE_BANDS / lifetimeMillis));
+            Path2D.Float path = bandPaths[band];
+            if (band != previousBand) {
+                // Start a new polyline in this band at the segment's first point
+                path.moveTo(xs[from], ys[from]);
+                bandUsed[band] = true;
+                previousBand = band;
+            }
+            path.lineTo(xs[to], ys[to]);
+        }
+        Stroke originalStroke = g.getStroke();
+        Object originalAntialiasing = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        g.setStroke(STROKE);
+        if (antialiased) {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        }
+        for (int band = FADE_BANDS - 1; band >= 0; band--) {
+            if (bandUsed[band]) {
+                g.setColor(BAND_COLORS[band]);
+                g.draw(bandPaths[band]);
+            }
+        }
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, originalAntialiasing);
+        g.setStroke(originalStroke);
+    }
+}
@@ -0,0 +1,135 @@
+// Speed of the simulation clock per category of object (FR5 slow motion and similar effects).
+// Any number of timed effects (up to MAX_EFFECTS) can run at once, each with its own scale per
+// category, so one effect can slow bombs while fruit keep their speed. Effects ease in and out
+// with a smoothstep curve and stack by multiplying their scales, never going below MIN_SCALE.
+// Durations are simulation time (ticks of GameLoop.TICKS_PER_SECOND), independent of frame rate.
+//
+// tick() evaluates every effect once and leaves the result in a lookup table indexed by category,
+// which is also the EntityStore kind; the physics loops just read scales[kind[i]], with no branch
+// per effect however many are active.
+public class TimeScale {
+    // Categories: the EntityStore kinds, then visual-only particles
+    public static final int FRUIT = EntityStore.KIND_FRUIT;
+    public static final int BOMB = EntityStore.KIND_BOMB;
+    public static final int BONUS = EntityStore.KIND_BONUS;
+    public static final int PARTICLES = 3;
+    public static final int CATEGORIES = 4;
+    private static final int MAX_EFFECTS = 8;     // a new effect replaces the one ending soonest when full
+    private static final double MIN_SCALE = 0.2;  // stacked effects never slow anything below this
+
+    // Active effects [0, count): target scale per category when fully eased in, and timing in ticks
+    private final double[][] targets = new double[MAX_EFFECTS][];
+    private final long[] startTick = new long[MAX_EFFECTS];
+    private final long[] endTick = new long[MAX_EFFECTS];
+    private final int[] easeInTicks = new int[MAX_EFFECTS];
+    private final int[] easeOutTicks = new int[MAX_EFFECTS];
+    private int count;
+    private long now;                              // ticks since reset
+
+    private final double[] scales = new double[CATEGORIES]; // result of the last tick()
+
+    public TimeScale() {
+        reset();
+    }
+
+    // Drop every effect and run at normal speed
+    public void reset() {
+        count = 0;
+        now = 0;
+        for (int c = 0; c < CATEGORIES; c++) {
+            scales[c] = 1.0;
+        }
+    }
+
+    // Start an effect now: category c runs at target[c] times normal speed for seconds of
+    // simulation time, reached over easeIn seconds and released over easeOut seconds.
+    // target is kept, not copied, and must not change while the effect runs.
+    public void start(double[] target, double seconds, double easeIn, double easeOut) {
+        int e = count;
+        if (count == MAX_EFFECTS) {
+            e = 0;
+            for (int k = 1; k < count; k++) {
+                if (endTick[k] < endTick[e]) {
+                    e = k;
+                }
+            }
+        } else {
+            count++;
+        }
+        long duration = Math.max(1, ticks(seconds));
+        targets[e] = target;
+        startTick[e] = now;
+        endTick[e] = now + duration;
+        easeInTicks[e] = (int) Math.min(ticks(easeIn), duration);
+        easeOutTicks[e] = (int) Math.min(ticks(easeOut), duration);
+    }
+
+    // Advance the clock one tick, drop finished effects and evaluate the scale table for the tick
+    public void tick() {
+        now++;
+        for (int c = 0; c < CATEGORIES; c++) {
+            scales[c] = 1.0;
+        }
+        int e = 0;
+        while (e < count) {
+            if (now >= endTick[e]) {
+                remove(e);
+                continue;
+            }
+            double strength = strength(e);
+            double[] target = targets[e];
+            for (int c = 0; c < CATEGORIES; c++) {
+                scales[c] *= 1.0 + (target[c] - 1.0) * strength;
+            }
+            e++;
+        }
+        for (int c = 0; c < CATEGORIES; c++) {
+            scales[c] = Math.max(MIN_SCALE, scales[c]);
+        }
+    }
+
+    // How far effect e is eased in at the current tick, 0 to 1
+    private double strength(int e) {
+        long age = now - startTick[e];
+        long left = endTick[e] - now;
+        if (age < easeInTicks[e]) {
+            return smoothstep((double) age / easeInTicks[e]);
+        }
+        if (left < easeOutTicks[e]) {
+            return smoothstep((double) left / easeOutTicks[e]);
+        }
+        return 1.0;
+    }
+
+    private static double smoothstep(double u) {
+        return u * u * (3 - 2 * u);
+    }
+
+    private void remove(int e) {
+        int last = --count;
+        targets[e] = targets[last];
+        startTick[e] = startTick[last];
+        endTick[e] = endTick[last];
+        easeInTicks[e] = easeInTicks[last];
+        easeOutTicks[e] = easeOutTicks[last];
+        targets[last] = null;
+    }
+
+    private static long ticks(double seconds) {
+        return Math.round(seconds * GameLoop.TICKS_PER_SECOND);
+    }
+
+    // Scale table of the current tick, indexed by category; shared, do not modify
+    public double[] getScales() {
+        return scales;
+    }
+
+    public double get(int category) {
+        return scales[category];
+    }
+
+    // True while any effect is running
+    public boolean isActive() {
+        return count > 0;
+    }
+}
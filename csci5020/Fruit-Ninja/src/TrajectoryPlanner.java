@@ -0,0 +1,182 @@
+// Default BotPlayer.Planner: chains fruits and bonuses into one swipe along their projected
+// flight paths, keeping clear of bombs. Positions are projected with the same integration as
+// EntityStore.updateAndCull (velocity, then GRAVITY, scaled by the object's current time scale),
+// to the tick the blade will actually reach them: after the skill's reaction time, one tick of
+// input latency and the travel time at the skill's blade speed.
+//
+// The swipe starts with a short horizontal lead-in through the target closest to its apex (the
+// slowest, easiest one), then repeatedly goes for the reachable target it would get to first,
+// as long as the segment there passes no bomb (projected over the segment's time span) within
+// the skill's clearance. Reuses its candidate list, so planning does not allocate.
+public class TrajectoryPlanner implements BotPlayer.Planner {
+    private static final int INPUT_LATENCY_TICKS = 1; // queued input is applied at the next tick
+    private static final int LEAD_IN = 60;            // blade length before the first target
+    private static final int LEAD_OUT = 40;           // and after the last one
+    private static final double MAX_REACH_TICKS = 20; // further targets are left for the next swipe
+    private static final int FIRST_TARGET_TRIES = 4;  // first targets tried before giving up
+
+    private int[] candidates = new int[64];  // store indices of targets not in the swipe yet
+    private int candidateCount;
+    private double[] scales;                 // time scales of the tick being planned
+    private double px, py;                   // projection result
+
+    @Override
+    public int plan(GameSimulation simulation, BotPlayer.Skill skill, int[] xs, int[] ys) {
+        EntityStore objects = simulation.getObjects();
+        scales = simulation.getTimeScale().getScales();
+        double speed = skill.getSpeed();
+        double t = skill.getReactionTicks() + INPUT_LATENCY_TICKS;
+        collectTargets(objects, t);
+        int count = startSwipe(objects, skill, t, xs, ys);
+        if (count == 0) {
+            return 0;
+        }
+        t += LEAD_IN / speed;
+        int limit = Math.min(skill.getMaxTargets() + 1, xs.length - 1);
+        while (count < limit) {
+            int best = -1;
+            double bestTime = Double.MAX_VALUE;
+            double bestX = 0, bestY = 0;
+            for (int k = 0; k < candidateCount; k++) {
+                int i = candidates[k];
+                // Where the target is when the blade gets there, refined once for the travel time
+                project(objects, i, t);
+                double arrival = t + distance(xs[count - 1], ys[count - 1], px, py) / speed;
+                project(objects, i, arrival);
+                arrival = t + distance(xs[count - 1], ys[count - 1], px, py) / speed;
+                if (arrival >= bestTime || arrival - t > MAX_REACH_TICKS || !onScreen(objects, i)) {
+                    continue;
+                }
+                double x = px, y = py;  // isClear projects the bombs
+                if (isClear(objects, skill, xs[count - 1], ys[count - 1], t, x, y, arrival)) {
+                    best = k;
+                    bestTime = arrival;
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            xs[count] = (int) Math.round(bestX);
+            ys[count] = (int) Math.round(bestY);
+            count++;
+            candidates[best] = candidates[--candidateCount];
+            t = bestTime;
+        }
+        // Follow through past the last target, if that does not run into a bomb
+        int dx = xs[count - 1] - xs[count - 2], dy = ys[count - 1] - ys[count - 2];
+        double length = Math.sqrt((double) dx * dx + (double) dy * dy);
+        if (length > 0) {
+            double ex = xs[count - 1] + dx * LEAD_OUT / length;
+            double ey = ys[count - 1] + dy * LEAD_OUT / length;
+            if (isClear(objects, skill, xs[count - 1], ys[count - 1], t, ex, ey, t + LEAD_OUT / speed)) {
+                xs[count] = (int) Math.round(ex);
+                ys[count] = (int) Math.round(ey);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Fruits and bonuses still on screen when the swipe starts
+    private void collectTargets(EntityStore objects, double t) {
+        if (candidates.length < objects.size()) {
+            candidates = new int[Math.max(objects.size(), candidates.length * 2)];
+        }
+        candidateCount = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            if (objects.getKind(i) == EntityStore.KIND_BOMB || objects.isSliced(i)) {
+                continue;
+            }
+            project(objects, i, t);
+            if (onScreen(objects, i)) {
+                candidates[candidateCount++] = i;
+            }
+        }
+    }
+
+    // Lead-in point and first target (two points), or 0 if no target can be approached safely.
+    // Targets are tried slowest first; the lead-in comes from whichever side is clear of bombs.
+    private int startSwipe(EntityStore objects, BotPlayer.Skill skill, double t, int[] xs, int[] ys) {
+        double hit = t + LEAD_IN / skill.getSpeed();
+        for (int attempt = 0; attempt < FIRST_TARGET_TRIES && candidateCount > 0; attempt++) {
+            int best = 0;
+            double slowest = Double.MAX_VALUE;
+            for (int k = 0; k < candidateCount; k++) {
+                int i = candidates[k];
+                double vy = Math.abs(objects.getVy(i) + GameSimulation.GRAVITY * scales[objects.getKind(i)] * hit);
+                if (vy < slowest) {
+                    slowest = vy;
+                    best = k;
+                }
+            }
+            int i = candidates[best];
+            candidates[best] = candidates[--candidateCount];
+            project(objects, i, hit);
+            if (!onScreen(objects, i)) {
+                continue;
+            }
+            double x = px, y = py;
+            for (int side = -1; side <= 1; side += 2) {
+                double sx = x + side * LEAD_IN;
+                if (sx >= 0 && sx <= GameSimulation.WIDTH && isClear(objects, skill, sx, y, t, x, y, hit)) {
+                    xs[0] = (int) Math.round(sx);
+                    ys[0] = (int) Math.round(y);
+                    xs[1] = (int) Math.round(x);
+                    ys[1] = (int) Math.round(y);
+                    return 2;
+                }
+            }
+        }
+        return 0;
+    }
+
+    // Position of object i after t more ticks at its current time scale, into (px, py)
+    private void project(EntityStore objects, int i, double t) {
+        double s = scales[objects.getKind(i)];
+        px = objects.getX(i) + objects.getVx(i) * s * t;
+        // Velocity is applied before gravity each tick: y += vy*s, then vy += G*s
+        py = objects.getY(i) + s * (objects.getVy(i) * t + GameSimulation.GRAVITY * s * t * (t - 1) / 2);
+    }
+
+    // Whether the last projection of object i is fully inside the world
+    private boolean onScreen(EntityStore objects, int i) {
+        int r = objects.getRadius(i);
+        return px >= r && px <= GameSimulation.WIDTH - r && py >= r && py <= GameSimulation.HEIGHT - r;
+    }
+
+    // True if the blade going from (x1, y1) at tick t1 to (x2, y2) at tick t2 keeps the skill's
+    // clearance from every bomb, checked against each bomb's projected position at the start,
+    // middle and end of the segment
+    private boolean isClear(EntityStore objects, BotPlayer.Skill skill, double x1, double y1, double t1,
+                            double x2, double y2, double t2) {
+        for (int i = 0; i < objects.size(); i++) {
+            if (objects.getKind(i) != EntityStore.KIND_BOMB || objects.isSliced(i)) {
+                continue;
+            }
+            double reach = objects.getRadius(i) + skill.getBombClearance();
+            for (int k = 0; k <= 2; k++) {
+                project(objects, i, t1 + (t2 - t1) * k / 2);
+                if (segmentDistanceSq(x1, y1, x2, y2, px, py) < reach * reach) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Squared distance from (x, y) to the segment (x1, y1)-(x2, y2)
+    static double segmentDistanceSq(double x1, double y1, double x2, double y2, double x, double y) {
+        double dx = x2 - x1, dy = y2 - y1;
+        double lengthSq = dx * dx + dy * dy;
+        double f = lengthSq == 0 ? 0 : Math.max(0, Math.min(1, ((x - x1) * dx + (y - y1) * dy) / lengthSq));
+        double ex = x1 + dx * f - x, ey = y1 + dy * f - y;
+        return ex * ex + ey * ey;
+    }
+
+    private static double distance(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1, dy = y2 - y1;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
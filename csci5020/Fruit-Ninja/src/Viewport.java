@@ -0,0 +1,162 @@
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+
+// How the fixed-size world (GameSimulation.WIDTH x HEIGHT units) is shown on a component of any
+// size: scaled uniformly to fit, centered, with letterbox bars on the sides that do not fill.
+// Immutable; GamePanel makes a new one when its size or display changes.
+//
+// A panel of exactly the world size on a 1:1 display is "direct": the game is painted straight
+// onto the component, as before. Otherwise the world is drawn into a back buffer at bufferScale
+// pixels per world unit, which is copied to the screen in one (scaled) drawImage. The buffer
+// matches the display's device pixels (HiDPI scaling included) unless that would exceed
+// MAX_RENDER_PIXELS, so fill cost stays bounded on very large displays; -Dfruitninja.renderScale
+// sets the fraction of the device resolution explicitly (e.g. 0.5 renders at half resolution).
+public final class Viewport {
+    private static final double MAX_RENDER_PIXELS = 2560.0 * 1440;  // automatic render scale keeps the buffer below this
+    private static final int CLIP_MARGIN = 2;  // world units redrawn around each clip
+    private static final double RENDER_SCALE = renderScaleProperty();  // 0 for automatic
+
+    private final int worldWidth, worldHeight;
+    private final int width, height;             // component size, in user-space pixels
+    private final GraphicsConfiguration config;  // display the component is on, or null
+    private final double scale;                  // component pixels per world unit
+    private final int offsetX, offsetY;          // top-left of the world on the component
+    private final int screenWidth, screenHeight; // size of the world on the component
+    private final double bufferScale;            // back buffer pixels per world unit
+    private final int bufferWidth, bufferHeight;
+    private final boolean upscaled;              // buffer has fewer pixels than the display shows
+    private final boolean direct;
+
+    private Viewport(int worldWidth, int worldHeight, int width, int height, GraphicsConfiguration gc) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.width = width;
+        this.height = height;
+        this.config = gc;
+        scale = Math.min((double) width / worldWidth, (double) height / worldHeight);
+        screenWidth = (int) Math.round(worldWidth * scale);
+        screenHeight = (int) Math.round(worldHeight * scale);
+        offsetX = (width - screenWidth) / 2;
+        offsetY = (height - screenHeight) / 2;
+        // HiDPI displays draw several device pixels per user-space pixel
+        double deviceScale = 1.0;
+        if (gc != null) {
+            AffineTransform transform = gc.getDefaultTransform();
+            deviceScale = Math.max(transform.getScaleX(), transform.getScaleY());
+        }
+        double pixelsPerUnit = scale * deviceScale;
+        double renderScale = RENDER_SCALE > 0 ? Math.min(1.0, RENDER_SCALE)
+                : Math.min(1.0, Math.sqrt(MAX_RENDER_PIXELS / (worldWidth * pixelsPerUnit * worldHeight * pixelsPerUnit)));
+        bufferScale = pixelsPerUnit * renderScale;
+        bufferWidth = Math.max(1, (int) Math.round(worldWidth * bufferScale));
+        bufferHeight = Math.max(1, (int) Math.round(worldHeight * bufferScale));
+        upscaled = renderScale < 1.0;
+        direct = width == worldWidth && height == worldHeight && deviceScale == 1.0 && !upscaled;
+    }
+
+    // -Dfruitninja.renderScale, or 0 (automatic) when it is not set or not a positive number
+    private static double renderScaleProperty() {
+        String value = System.getProperty("fruitninja.renderScale");
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        double renderScale;
+        try {
+            renderScale = Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            renderScale = Double.NaN;
+        }
+        if (!(renderScale >= 0)) {
+            System.err.println("Invalid fruitninja.renderScale " + value + "; scaling automatically");
+            return 0;
+        }
+        return renderScale;
+    }
+
+    // Viewport for a component of the given size on display gc (null if not known yet)
+    public static Viewport create(int worldWidth, int worldHeight, int width, int height, GraphicsConfiguration gc) {
+        return new Viewport(worldWidth, worldHeight, width, height, gc);
+    }
+
+    // True if this viewport was made for the same component size and display
+    public boolean matches(int width, int height, GraphicsConfiguration gc) {
+        return width == this.width && height == this.height && gc == config;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    public boolean isUpscaled() {
+        return upscaled;
+    }
+
+    // Component to world coordinates (mouse input); points on the letterbox bars fall outside the world
+    public int toWorldX(int x) {
+        return (int) Math.floor((x - offsetX) / scale);
+    }
+    public int toWorldY(int y) {
+        return (int) Math.floor((y - offsetY) / scale);
+    }
+
+    // World to component coordinates
+    public int toScreenX(double x) {
+        return offsetX + (int) Math.round(x * scale);
+    }
+    public int toScreenY(double y) {
+        return offsetY + (int) Math.round(y * scale);
+    }
+
+    // Add the component area covering every rectangle of a world damage region to screen
+    public void toScreen(DamageRegion world, DamageRegion screen) {
+        if (world.isFull()) {
+            screen.setFull();
+            return;
+        }
+        for (int k = 0; k < world.getCount(); k++) {
+            int x = world.getX(k), y = world.getY(k);
+            screen.add(offsetX + (int) Math.floor(x * scale) - 1, offsetY + (int) Math.floor(y * scale) - 1,
+                    offsetX + (int) Math.ceil((x + world.getWidth(k)) * scale) + 1,
+                    offsetY + (int) Math.ceil((y + world.getHeight(k)) * scale) + 1);
+        }
+    }
+
+    // Turn a component clip rectangle into the world area it shows, in place. The margin covers the
+    // neighbouring buffer pixels that filtering reads when the buffer is upscaled.
+    public void toWorld(Rectangle clip) {
+        int x0 = Math.max(0, (int) Math.floor((clip.x - offsetX) / scale) - CLIP_MARGIN);
+        int y0 = Math.max(0, (int) Math.floor((clip.y - offsetY) / scale) - CLIP_MARGIN);
+        int x1 = Math.min(worldWidth, (int) Math.ceil((clip.x + clip.width - offsetX) / scale) + CLIP_MARGIN);
+        int y1 = Math.min(worldHeight, (int) Math.ceil((clip.y + clip.height - offsetY) / scale) + CLIP_MARGIN);
+        clip.setBounds(x0, y0, Math.max(0, x1 - x0), Math.max(0, y1 - y0));
+    }
+
+    public int getOffsetX() {
+        return offsetX;
+    }
+    public int getOffsetY() {
+        return offsetY;
+    }
+    public int getScreenWidth() {
+        return screenWidth;
+    }
+    public int getScreenHeight() {
+        return screenHeight;
+    }
+    public int getWidth() {
+        return width;
+    }
+    public int getHeight() {
+        return height;
+    }
+    public double getBufferScale() {
+        return bufferScale;
+    }
+    public int getBufferWidth() {
+        return bufferWidth;
+    }
+    public int getBufferHeight() {
+        return bufferHeight;
+    }
+}
@@ -0,0 +1,208 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+// Difficulty curve (FR1, FR7) as a list of spawn waves read from a properties file, so spawn rates,
+// batch sizes, the fruit/bomb/bonus mix and launch speeds can be tuned without code changes.
+// The built-in curve is waves.properties on the classpath; -Dfruitninja.waves=<file> replaces it.
+// See waves.properties for the keys. Immutable once loaded, so one table serves every game.
+public class WaveTable {
+    private static final String RESOURCE = "/waves.properties";
+
+    // What a spawn can be: every fruit type, the bomb, then every bonus type. Spawn kind k launches
+    // an EntityStore object of kind getKind(k) and type getType(k).
+    private static final Fruit.FruitType[] FRUIT_TYPES = Fruit.FruitType.values();
+    private static final BonusItem.BonusType[] BONUS_TYPES = BonusItem.BonusType.values();
+    private static final int BOMB_KIND = FRUIT_TYPES.length;
+    private static final int SPAWN_KINDS = FRUIT_TYPES.length + 1 + BONUS_TYPES.length;
+
+    // One stage of the curve; its settings apply from minScore until the next wave's minScore
+    public static final class Wave {
+        final int minScore;       // score at which this wave starts
+        final int interval;       // ticks between spawn batches
+        final int batchMin;       // objects per batch, uniform in [batchMin, batchMax]
+        final int batchMax;
+        final int margin;         // launch x keeps this far from the side edges
+        final double speedMin;    // upward launch speed range, pixels per tick
+        final double speedMax;
+        final double maxVx;       // horizontal launch speed range is [-maxVx, maxVx]
+        final double fruitWeight; // relative weights of the three groups, as configured
+        final double bombWeight;
+        final double bonusWeight;
+        final AliasTable kinds;   // spawn kind choice built from the group weights
+
+        Wave(int minScore, int interval, int batchMin, int batchMax, int margin,
+                double speedMin, double speedMax, double maxVx,
+                double fruitWeight, double bombWeight, double bonusWeight, AliasTable kinds) {
+            this.minScore = minScore;
+            this.interval = interval;
+            this.batchMin = batchMin;
+            this.batchMax = batchMax;
+            this.margin = margin;
+            this.speedMin = speedMin;
+            this.speedMax = speedMax;
+            this.maxVx = maxVx;
+            this.fruitWeight = fruitWeight;
+            this.bombWeight = bombWeight;
+            this.bonusWeight = bonusWeight;
+            this.kinds = kinds;
+        }
+
+        public int getMinScore() {
+            return minScore;
+        }
+        public int getInterval() {
+            return interval;
+        }
+    }
+
+    private final Wave[] waves;   // ordered by minScore, the first starting at 0
+
+    private WaveTable(Wave[] waves) {
+        this.waves = waves;
+    }
+
+    // Table of the running game, loaded on first use
+    public static WaveTable getDefault() {
+        return DefaultHolder.TABLE;
+    }
+
+    private static class DefaultHolder {
+        static final WaveTable TABLE = loadDefault();
+    }
+
+    private static WaveTable loadDefault() {
+        String path = System.getProperty("fruitninja.waves");
+        if (path != null && !path.isEmpty()) {
+            try (InputStream in = Files.newInputStream(Paths.get(path))) {
+                return load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Waves file " + path + " ignored, using the built-in waves: " + e.getMessage());
+            }
+        }
+        try (InputStream in = WaveTable.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException(RESOURCE + " not found on the classpath");
+            }
+            return load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot read " + RESOURCE, e);
+        }
+    }
+
+    // Parse a waves file; throws IllegalArgumentException naming the offending key
+    public static WaveTable load(InputStream in) throws IOException {
+        Properties props = new Properties();
+        props.load(in);
+        int count = getInt(props, "wave.count", null, 1);
+        Wave[] waves = new Wave[count];
+        for (int w = 0; w < count; w++) {
+            Wave previous = w > 0 ? waves[w - 1] : null;
+            String prefix = "wave." + w + ".";
+            int minScore = getInt(props, prefix + "minScore", w == 0 ? 0 : null, 0);
+            if (w == 0 && minScore != 0) {
+                throw new IllegalArgumentException(prefix + "minScore must be 0");
+            }
+            if (previous != null && minScore <= previous.minScore) {
+                throw new IllegalArgumentException(prefix + "minScore must be above the previous wave's");
+            }
+            int interval = getInt(props, prefix + "interval", previous == null ? null : previous.interval, 1);
+            int batchMin = getInt(props, prefix + "batchMin", previous == null ? 1 : previous.batchMin, 1);
+            int batchMax = getInt(props, prefix + "batchMax", previous == null ? batchMin : previous.batchMax, 1);
+            checkRange(props, prefix, "batchMin", batchMin, "batchMax", batchMax);
+            int margin = getInt(props, prefix + "margin", previous == null ? null : previous.margin, 0);
+            if (2 * margin >= GameSimulation.WIDTH) {
+                throw new IllegalArgumentException(prefix + "margin leaves no room to launch from");
+            }
+            double speedMin = getDouble(props, prefix + "speedMin", previous == null ? null : previous.speedMin, 0);
+            double speedMax = getDouble(props, prefix + "speedMax", previous == null ? null : previous.speedMax, 0);
+            checkRange(props, prefix, "speedMin", speedMin, "speedMax", speedMax);
+            double maxVx = getDouble(props, prefix + "maxVx", previous == null ? null : previous.maxVx, 0);
+            double fruit = getDouble(props, prefix + "fruit", previous == null ? null : previous.fruitWeight, 0);
+            double bomb = getDouble(props, prefix + "bomb", previous == null ? null : previous.bombWeight, 0);
+            double bonus = getDouble(props, prefix + "bonus", previous == null ? null : previous.bonusWeight, 0);
+            if (fruit + bomb + bonus <= 0) {
+                throw new IllegalArgumentException(prefix + "fruit, bomb and bonus weights are all 0");
+            }
+            // Group weights are split evenly across the group's types
+            double[] weights = new double[SPAWN_KINDS];
+            for (int k = 0; k < FRUIT_TYPES.length; k++) {
+                weights[k] = fruit / FRUIT_TYPES.length;
+            }
+            weights[BOMB_KIND] = bomb;
+            for (int k = 0; k < BONUS_TYPES.length; k++) {
+                weights[BOMB_KIND + 1 + k] = bonus / BONUS_TYPES.length;
+            }
+            waves[w] = new Wave(minScore, interval, batchMin, batchMax, margin, speedMin, speedMax, maxVx,
+                    fruit, bomb, bonus, new AliasTable(weights));
+        }
+        return new WaveTable(waves);
+    }
+
+    // A wave's resolved range must have min <= max; an inherited max is checked against a new min too
+    private static void checkRange(Properties props, String prefix, String minKey, double min,
+            String maxKey, double max) {
+        if (max < min) {
+            String inherited = props.getProperty(prefix + maxKey) == null ? " (inherited from the previous wave)" : "";
+            throw new IllegalArgumentException(prefix + maxKey + inherited + " must be at least " + prefix + minKey);
+        }
+    }
+
+    // Integer property at least min; a missing key takes inherited (the previous wave's value) or is an error
+    private static int getInt(Properties props, String key, Integer inherited, int min) {
+        String value = props.getProperty(key);
+        if (value == null) {
+            if (inherited == null) {
+                throw new IllegalArgumentException(key + " is missing");
+            }
+            return inherited;
+        }
+        int result;
+        try {
+            result = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not an integer: " + value);
+        }
+        if (result < min) {
+            throw new IllegalArgumentException(key + " must be at least " + min);
+        }
+        return result;
+    }
+
+    private static double getDouble(Properties props, String key, Double inherited, double min) {
+        String value = props.getProperty(key);
+        if (value == null) {
+            if (inherited == null) {
+                throw new IllegalArgumentException(key + " is missing");
+            }
+            return inherited;
+        }
+        double result;
+        try {
+            result = Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not a number: " + value);
+        }
+        if (!(result >= min) || Double.isInfinite(result)) {
+            throw new IllegalArgumentException(key + " must be a finite number of at least " + min);
+        }
+        return result;
+    }
+
+    public int getWaveCount() {
+        return waves.length;
+    }
+    public Wave getWave(int w) {
+        return waves[w];
+    }
+
+    // Spawn kind k as an EntityStore kind and type
+    static byte getKind(int k) {
+        return k < BOMB_KIND ? EntityStore.KIND_FRUIT : k == BOMB_KIND ? EntityStore.KIND_BOMB : EntityStore.KIND_BONUS;
+    }
+    static int getType(int k) {
+        return k < BOMB_KIND ? k : k == BOMB_KIND ? 0 : k - BOMB_KIND - 1;
+    }
+}